@@ -1,7 +1,129 @@
 package edu.agh.recipe.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 public class AsyncConfig {
+
+    /**
+     * Runs image resizing in the background. Both the thread count and the queue
+     * are bounded, so a burst of uploads cannot exhaust memory with decoded images.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageProcessingExecutor(
+            @Value("${recipe.images.processing.threads:2}") int threads,
+            @Value("${recipe.images.processing.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-processing-");
+        return executor;
+    }
+
+    /**
+     * Copies frequently requested images into the image cache, off the request threads.
+     * When the queue is full the copy is skipped and made on a later request.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageCacheExecutor(
+            @Value("${recipe.images.cache.threads:2}") int threads,
+            @Value("${recipe.images.cache.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-cache-");
+        return executor;
+    }
+
+    /**
+     * Writes the files of a multi-image upload to GridFS in parallel. When the queue
+     * is full the request thread stores the file itself, which slows down that upload
+     * instead of failing it.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageUploadExecutor(
+            @Value("${recipe.images.upload.threads:4}") int threads,
+            @Value("${recipe.images.upload.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("image-upload-");
+        return executor;
+    }
+
+    /**
+     * Runs the asynchronous parts of MVC requests, above all the streamed exports, which
+     * can take up to the async request timeout. Declaring the other executors stops
+     * Spring Boot from creating its own, and without one MVC would start a new thread
+     * per download. Downloads beyond the threads and the queue are rejected.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor(
+            @Value("${recipe.mvc.async.threads:8}") int threads,
+            @Value("${recipe.mvc.async.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        return executor;
+    }
+
+    /**
+     * Runs recipe imports, which mostly wait for remote sites. Imports are limited to
+     * the thread count plus the queue capacity; beyond that the executor rejects new
+     * ones with {@link TaskRejectedException}. With virtual threads every import gets
+     * its own thread and the same total is the limit of imports in progress.
+     */
+    @Bean
+    public TaskExecutor importExecutor(
+            @Value("${recipe.import.executor.threads:8}") int threads,
+            @Value("${recipe.import.executor.queue-capacity:50}") int queueCapacity,
+            @Value("${recipe.import.executor.virtual-threads:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return limitedVirtualThreadExecutor("import-", threads + queueCapacity);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("import-");
+        return executor;
+    }
+
+    private TaskExecutor limitedVirtualThreadExecutor(String threadNamePrefix, int limit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        Semaphore permits = new Semaphore(limit);
+        return task -> {
+            if (!permits.tryAcquire()) {
+                throw new TaskRejectedException("Executor limit of " + limit + " tasks reached");
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        };
+    }
 }
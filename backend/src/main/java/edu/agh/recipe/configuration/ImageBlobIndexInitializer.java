@@ -0,0 +1,36 @@
+package edu.agh.recipe.configuration;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Indexes image blobs by content hash, so an upload finds already stored bytes
+ * without scanning {@code fs.files}. The hash is unique among blobs that still
+ * have references, so two concurrent uploads of the same bytes cannot both become
+ * a blob; blobs whose last reference is being removed are left out. GridFS files
+ * are not mapped entities, so this index is not created from annotations.
+ */
+@Component
+public class ImageBlobIndexInitializer implements CommandLineRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    public ImageBlobIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+    }
+
+    @Override
+    public void run(String... args) {
+        mongoTemplate.indexOps("fs.files").ensureIndex(new Index().on("metadata.sha256", Sort.Direction.ASC)
+                .unique()
+                .partial(PartialIndexFilter.of(Criteria.where("metadata.refCount").gt(0)))
+                .named("blob_sha256_referenced"));
+    }
+}
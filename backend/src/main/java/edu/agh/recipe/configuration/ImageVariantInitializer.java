@@ -0,0 +1,26 @@
+package edu.agh.recipe.configuration;
+
+import edu.agh.recipe.images.service.ImageVariantService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Generates the sizes of images stored before sizes existed, or whose generation
+ * was lost to a full queue or a restart, so they are no longer served at full size.
+ */
+@Component
+public class ImageVariantInitializer implements CommandLineRunner {
+
+    private final ImageVariantService imageVariantService;
+
+    public ImageVariantInitializer(ImageVariantService imageVariantService) {
+        this.imageVariantService = Objects.requireNonNull(imageVariantService);
+    }
+
+    @Override
+    public void run(String... args) {
+        imageVariantService.generateMissingVariants();
+    }
+}
@@ -0,0 +1,125 @@
+package edu.agh.recipe.configuration;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.MongoCollection;
+import edu.agh.recipe.recipes.model.Recipe;
+import edu.agh.recipe.search.service.RecipeSearchService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Explains every recipe query shape used by the application and logs the winning plans.
+ * Startup fails when one of them would scan the whole collection instead of an index.
+ * Enabled with {@code recipe.query-plans.verify=true}, which the {@code ci} profile sets.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe.query-plans.verify", havingValue = "true")
+public class RecipeQueryPlanVerifier implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecipeQueryPlanVerifier.class);
+    private static final String COLLECTION_SCAN = "COLLSCAN";
+    // The planner may pick a different index depending on the value, so every shape
+    // is explained with several of them. Names shorter than an n-gram are matched
+    // with a regular expression instead of the n-gram index.
+    private static final List<String> SAMPLE_VALUES = List.of("pierogi", "zupa pomidorowa", "ab");
+    private static final List<Sort.Direction> DIRECTIONS = List.of(Sort.Direction.ASC, Sort.Direction.DESC);
+
+    private final MongoTemplate mongoTemplate;
+    private final RecipeSearchService recipeSearchService;
+
+    public RecipeQueryPlanVerifier(MongoTemplate mongoTemplate, RecipeSearchService recipeSearchService) {
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+        this.recipeSearchService = Objects.requireNonNull(recipeSearchService);
+    }
+
+    @Override
+    public void run(String... args) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Recipe.class));
+
+        List<String> collectionScans = new ArrayList<>();
+        queryShapes().forEach((shape, query) -> {
+            Document explanation = collection.find(query.getQueryObject())
+                    .sort(query.getSortObject())
+                    .explain(ExplainVerbosity.QUERY_PLANNER);
+
+            List<String> stages = new ArrayList<>();
+            collectStages(winningPlan(explanation), stages);
+            logger.info("Query plan for {}: {}", shape, String.join(" <- ", stages));
+
+            if (stages.contains(COLLECTION_SCAN)) {
+                collectionScans.add(shape);
+            }
+        });
+
+        if (!collectionScans.isEmpty()) {
+            throw new IllegalStateException("Recipe queries without a usable index: " + collectionScans);
+        }
+    }
+
+    private Map<String, Query> queryShapes() {
+        Map<String, Query> shapes = new LinkedHashMap<>();
+        for (Sort.Direction direction : DIRECTIONS) {
+            Sort listingSort = Sort.by(direction, "name", "_id");
+            shapes.put("all recipes " + direction, new Query().with(listingSort));
+            for (String field : List.of("createdAt", "modifiedAt")) {
+                shapes.put("all recipes by " + field + " " + direction,
+                        new Query().with(Sort.by(direction, field, "_id")));
+            }
+
+            for (String value : SAMPLE_VALUES) {
+                Map<String, Criteria> filters = new LinkedHashMap<>();
+                filters.put("any ingredients", Criteria.where("ingredients.ingredientName").in(value));
+                filters.put("all ingredients", Criteria.where("ingredients.ingredientName").all(value));
+                filters.put("tag", Criteria.where("tagIds").is(value));
+                filters.put("any tags", Criteria.where("tagIds").in(value));
+                filters.put("all tags", Criteria.where("tagIds").all(value));
+                filters.put("name search", recipeSearchService.nameContains(value));
+                filters.put("name prefix", recipeSearchService.nameStartsWith(value));
+                filters.put("advanced search", new Criteria().andOperator(
+                        recipeSearchService.nameContains(value),
+                        Criteria.where("ingredients.ingredientName").all(value),
+                        Criteria.where("tagIds").all(value)));
+                filters.forEach((shape, criteria) -> shapes.put(
+                        shape + " '" + value + "' " + direction, new Query(criteria).with(listingSort)));
+            }
+
+            shapes.put("modified between " + direction,
+                    new Query(Criteria.where("modifiedAt").gt(Instant.EPOCH).lte(Instant.now()))
+                            .with(Sort.by(direction, "modifiedAt", "_id")));
+        }
+        return shapes;
+    }
+
+    private Document winningPlan(Document explanation) {
+        Document winningPlan = explanation.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        // Plans executed by the slot based engine are nested one level deeper.
+        return winningPlan.containsKey("queryPlan") ? winningPlan.get("queryPlan", Document.class) : winningPlan;
+    }
+
+    private void collectStages(Document plan, List<String> stages) {
+        stages.add(plan.getString("stage"));
+        if (plan.get("inputStage") instanceof Document inputStage) {
+            collectStages(inputStage, stages);
+        }
+        if (plan.get("inputStages") instanceof List<?> inputStages) {
+            for (Object inputStage : inputStages) {
+                collectStages((Document) inputStage, stages);
+            }
+        }
+    }
+}
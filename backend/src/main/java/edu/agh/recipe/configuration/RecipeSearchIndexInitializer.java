@@ -0,0 +1,65 @@
+package edu.agh.recipe.configuration;
+
+import edu.agh.recipe.recipes.model.Recipe;
+import edu.agh.recipe.search.text.SearchTextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Fills in the search fields of recipes stored before the search index existed.
+ * New and updated recipes get them from {@code RecipeSearchFieldsListener}.
+ */
+@Component
+public class RecipeSearchIndexInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecipeSearchIndexInitializer.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public RecipeSearchIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+    }
+
+    @Override
+    public void run(String... args) {
+        Query missingSearchFields = new Query(Criteria.where("searchName").exists(false));
+        missingSearchFields.fields().include("name");
+
+        int updated = 0;
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Recipe.class);
+        try (Stream<Recipe> recipes = mongoTemplate.stream(missingSearchFields, Recipe.class)) {
+            for (Recipe recipe : (Iterable<Recipe>) recipes::iterator) {
+                String searchName = SearchTextNormalizer.normalize(recipe.getName());
+                bulkOperations.updateOne(
+                        Query.query(Criteria.where("_id").is(recipe.getId())),
+                        new Update().set("searchName", searchName)
+                                .set("nameNgrams", SearchTextNormalizer.ngrams(searchName))
+                );
+                updated++;
+
+                if (updated % BATCH_SIZE == 0) {
+                    bulkOperations.execute();
+                    bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Recipe.class);
+                }
+            }
+        }
+
+        if (updated % BATCH_SIZE != 0) {
+            bulkOperations.execute();
+        }
+        if (updated > 0) {
+            logger.info("Added search fields to {} existing recipes", updated);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package edu.agh.recipe.configuration;
+
+import edu.agh.recipe.recipes.model.Recipe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Stamps recipes stored before creation and modification times were tracked,
+ * so that sorting and cursor pagination by these times see no missing values.
+ */
+@Component
+public class RecipeTimestampInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecipeTimestampInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public RecipeTimestampInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+    }
+
+    @Override
+    public void run(String... args) {
+        Instant now = Instant.now();
+        long updated = mongoTemplate.updateMulti(
+                new Query(Criteria.where("createdAt").exists(false)),
+                new Update().set("createdAt", now).set("modifiedAt", now),
+                Recipe.class
+        ).getModifiedCount();
+
+        if (updated > 0) {
+            logger.info("Added timestamps to {} existing recipes", updated);
+        }
+    }
+}
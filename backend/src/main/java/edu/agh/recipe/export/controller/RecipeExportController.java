@@ -11,15 +11,21 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Objects;
 
 @RestController
@@ -31,11 +37,15 @@ public class RecipeExportController {
 
     private final RecipeMarkdownExportService recipeMarkdownExportService;
     private final RecipeJsonExportService recipeJsonExportService;
+    // Deletions older than this are no longer recorded, see RecipeTombstone.
+    private final Duration tombstoneRetention;
 
     public RecipeExportController(RecipeMarkdownExportService recipeMarkdownExportService,
-                                  RecipeJsonExportService recipeJsonExportService) {
+                                  RecipeJsonExportService recipeJsonExportService,
+                                  @Value("${recipe.export.tombstones.retention:90d}") Duration tombstoneRetention) {
         this.recipeMarkdownExportService = Objects.requireNonNull(recipeMarkdownExportService);
         this.recipeJsonExportService = Objects.requireNonNull(recipeJsonExportService);
+        this.tombstoneRetention = Objects.requireNonNull(tombstoneRetention);
     }
 
     @Operation(
@@ -44,19 +54,22 @@ public class RecipeExportController {
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully exported all recipes",
-                content = @Content(schema = @Schema(implementation = Resource.class))),
+                content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)),
         @ApiResponse(responseCode = "500", description = "Error exporting recipes", content = @Content)
     })
     @GetMapping("/markdown/zip")
-    public ResponseEntity<Resource> exportAllRecipesAsMarkdownZip() {
+    public ResponseEntity<StreamingResponseBody> exportAllRecipesAsMarkdownZip() {
         logger.info("Exporting all recipes as markdown ZIP...");
-        Resource zipResource = recipeMarkdownExportService.exportRecipesToMarkdownZip();
-        logger.info("Successfully exported all recipes to ZIP.");
+        // ZIP entries are written to the response as soon as their recipes are rendered.
+        StreamingResponseBody body = outputStream -> {
+            recipeMarkdownExportService.writeRecipesToMarkdownZip(outputStream);
+            logger.info("Successfully exported all recipes to ZIP.");
+        };
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"recipes.zip\"")
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(zipResource);
+                .body(body);
     }
 
     @Operation(
@@ -90,19 +103,60 @@ public class RecipeExportController {
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully exported all recipes",
-                    content = @Content(schema = @Schema(implementation = Resource.class))),
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)),
             @ApiResponse(responseCode = "500", description = "Error exporting recipes", content = @Content)
     })
     @GetMapping("/json")
-    public ResponseEntity<Resource> exportAllRecipesAsJson() {
+    public ResponseEntity<StreamingResponseBody> exportAllRecipesAsJson() {
         logger.info("Exporting all recipes as JSON...");
-        Resource jsonResource = recipeJsonExportService.exportRecipesToJson();
-        logger.info("Successfully exported all recipes to JSON");
+        // The recipes are written to the response as they are read, with chunked transfer encoding.
+        StreamingResponseBody body = outputStream -> {
+            recipeJsonExportService.writeRecipesToJson(outputStream);
+            logger.info("Successfully exported all recipes to JSON");
+        };
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"recipes.json\"")
                 .contentType(MediaType.APPLICATION_JSON)
-                .body(jsonResource);
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Export recipe changes as JSON.",
+            description = "Exports the recipes created or modified since the given time and the ids of the " +
+                    "recipes deleted since then. The returned 'until' time is the 'since' of the next export; " +
+                    "it lags the current time by a few minutes, and a recipe may appear in two consecutive " +
+                    "exports, so apply them by id. Deletions are kept for a limited time; an older 'since' " +
+                    "is rejected with 410 and needs a full export."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully exported recipe changes",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)),
+            @ApiResponse(responseCode = "400", description = "Invalid time", content = @Content),
+            @ApiResponse(responseCode = "410", description = "Changes since that time are no longer available",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Error exporting recipes", content = @Content)
+    })
+    @GetMapping("/json/changes")
+    public ResponseEntity<StreamingResponseBody> exportRecipeChangesAsJson(
+            @Parameter(description = "ISO-8601 time of the previous export, e.g. 2025-01-31T22:00:00Z", required = true)
+            @RequestParam Instant since
+    ) {
+        if (since.isBefore(Instant.now().minus(tombstoneRetention))) {
+            throw new ResponseStatusException(HttpStatus.GONE,
+                    "Deletions are kept for " + tombstoneRetention.toDays() + " days, a full export is needed.");
+        }
+
+        logger.info("Exporting recipe changes since {} as JSON...", since);
+        StreamingResponseBody body = outputStream -> {
+            recipeJsonExportService.writeRecipeChangesToJson(since, outputStream);
+            logger.info("Successfully exported recipe changes since {} to JSON", since);
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"recipe-changes.json\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @Operation(
@@ -130,9 +184,22 @@ public class RecipeExportController {
                 .body(jsonResource);
     }
 
+    /**
+     * Answers with 500 when the export fails before any of it is sent. Once a streamed
+     * download has started, the status is sent and cannot change; the exception is
+     * passed on to the servlet container, which closes the connection without ending
+     * the response, so the client sees a truncated download instead of a complete file.
+     */
     @ExceptionHandler(RecipeExportException.class)
-    public ResponseEntity<String> handleRecipeExportException(RecipeExportException ex) {
+    public ResponseEntity<String> handleRecipeExportException(RecipeExportException ex, HttpServletResponse response) {
+        if (response.isCommitted()) {
+            logger.error("Recipe export failed after the download started, aborting it: {}", ex.getMessage(), ex);
+            throw ex;
+        }
+
         logger.error("Recipe export failed: {}", ex.getMessage(), ex);
+        // Drops the attachment headers and any buffered part of the export.
+        response.reset();
         return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .contentType(MediaType.TEXT_PLAIN)
@@ -1,31 +1,93 @@
 package edu.agh.recipe.export.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import edu.agh.recipe.export.exception.RecipeExportException;
 import edu.agh.recipe.recipes.dto.RecipeDTO;
+import edu.agh.recipe.recipes.dto.RecipeTombstoneDTO;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service
 public class DefaultRecipeJsonExportService implements RecipeJsonExportService {
 
     private final RecipeDataFetcher recipeDataFetcher;
     private final ObjectMapper objectMapper;
+    // Flushing is left to the generator buffer, so recipes are not sent in tiny chunks.
+    private final ObjectWriter recipeWriter;
+    private final Duration changesSafetyWindow;
 
-    public DefaultRecipeJsonExportService(RecipeDataFetcher recipeDataFetcher, ObjectMapper objectMapper) {
+    public DefaultRecipeJsonExportService(RecipeDataFetcher recipeDataFetcher, ObjectMapper objectMapper,
+                                          @Value("${recipe.export.changes.safety-window:5m}") Duration changesSafetyWindow) {
         this.recipeDataFetcher = Objects.requireNonNull(recipeDataFetcher);
         this.objectMapper = Objects.requireNonNull(objectMapper);
+        this.changesSafetyWindow = Objects.requireNonNull(changesSafetyWindow);
+        this.recipeWriter = objectMapper.writerFor(RecipeDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @Override
-    public Resource exportRecipesToJson() {
-        List<RecipeDTO> allRecipes = recipeDataFetcher.fetchAllRecipes();
-        return createJsonFile(allRecipes);
+    public void writeRecipesToJson(OutputStream outputStream) {
+        try (Stream<RecipeDTO> recipes = recipeDataFetcher.streamAllRecipes();
+             JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            // The output stream belongs to the caller.
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            generator.writeStartArray();
+            recipes.forEach(recipe -> writeRecipe(generator, recipe));
+            generator.writeEndArray();
+        } catch (IOException | UncheckedIOException e) {
+            throw new RecipeExportException("Failed to export recipes to JSON.", e);
+        }
+    }
+
+    /**
+     * Saved recipes are stamped with the clock of the node that saves them, before the
+     * write is committed. The export therefore stops a safety window before now, so
+     * writes still in flight and small clock differences between nodes land after
+     * {@code until} and are picked up by the next export.
+     */
+    @Override
+    public void writeRecipeChangesToJson(Instant since, OutputStream outputStream) {
+        Instant until = Instant.now().minus(changesSafetyWindow);
+        if (until.isBefore(since)) {
+            until = since;
+        }
+
+        try (Stream<RecipeDTO> recipes = recipeDataFetcher.streamRecipesModifiedBetween(since, until);
+             Stream<RecipeTombstoneDTO> deletedRecipes = recipeDataFetcher.streamRecipesDeletedBetween(since, until);
+             JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            generator.writeStartObject();
+            generator.writeStringField("since", since.toString());
+            generator.writeStringField("until", until.toString());
+
+            generator.writeArrayFieldStart("recipes");
+            recipes.forEach(recipe -> writeRecipe(generator, recipe));
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("deleted");
+            deletedRecipes.forEach(tombstone -> writeTombstone(generator, tombstone));
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        } catch (IOException | UncheckedIOException e) {
+            throw new RecipeExportException("Failed to export recipe changes to JSON.", e);
+        }
     }
 
     @Override
@@ -35,6 +97,25 @@ public class DefaultRecipeJsonExportService implements RecipeJsonExportService {
         return createJsonFile(recipes);
     }
 
+    private void writeRecipe(JsonGenerator generator, RecipeDTO recipe) {
+        try {
+            recipeWriter.writeValue(generator, recipe);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeTombstone(JsonGenerator generator, RecipeTombstoneDTO tombstone) {
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("id", tombstone.id());
+            generator.writeStringField("deletedAt", tombstone.deletedAt().toString());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private Resource createJsonFile(List<RecipeDTO> recipes) {
         try {
             byte[] jsonBytes = objectMapper.writeValueAsBytes(recipes);
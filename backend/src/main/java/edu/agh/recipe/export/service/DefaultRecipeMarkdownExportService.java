@@ -3,31 +3,73 @@ package edu.agh.recipe.export.service;
 import edu.agh.recipe.export.exception.RecipeExportException;
 import edu.agh.recipe.recipes.dto.RecipeDTO;
 import edu.agh.recipe.tags.dto.TagDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+/**
+ * Full exports are pipelined: recipes are rendered to Markdown in parallel on a
+ * bounded worker pool, while the calling thread writes the rendered entries to
+ * the ZIP stream in their original order. At most a window of rendered recipes
+ * waits in memory for the writer.
+ */
 @Service
 public class DefaultRecipeMarkdownExportService implements RecipeMarkdownExportService {
 
     private final RecipeDataFetcher recipeDataFetcher;
+    private final ExecutorService renderExecutor;
+    private final int renderWindow;
 
-    public DefaultRecipeMarkdownExportService(RecipeDataFetcher recipeDataFetcher) {
+    public DefaultRecipeMarkdownExportService(
+            RecipeDataFetcher recipeDataFetcher,
+            @Value("${recipe.export.markdown.render-threads:4}") int renderThreads) {
         this.recipeDataFetcher = Objects.requireNonNull(recipeDataFetcher);
+        this.renderExecutor = Executors.newFixedThreadPool(renderThreads, renderThreadFactory());
+        this.renderWindow = renderThreads * 4;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderExecutor.shutdownNow();
     }
 
     @Override
-    public Resource exportRecipesToMarkdownZip() {
-        List<RecipeDTO> allRecipes = recipeDataFetcher.fetchAllRecipes();
-        return createZipWithMarkdownFiles(allRecipes);
+    public void writeRecipesToMarkdownZip(OutputStream outputStream) {
+        MarkdownZipWriter zipWriter = new MarkdownZipWriter(outputStream);
+        Deque<CompletableFuture<RenderedRecipe>> inFlight = new ArrayDeque<>();
+        try (Stream<RecipeDTO> recipes = recipeDataFetcher.streamAllRecipes()) {
+            recipes.forEach(recipe -> {
+                inFlight.addLast(CompletableFuture.supplyAsync(() -> render(recipe), renderExecutor));
+                if (inFlight.size() >= renderWindow) {
+                    zipWriter.write(inFlight.removeFirst().join());
+                }
+            });
+            while (!inFlight.isEmpty()) {
+                zipWriter.write(inFlight.removeFirst().join());
+            }
+            zipWriter.finish();
+        } catch (UncheckedIOException | CompletionException e) {
+            inFlight.forEach(rendering -> rendering.cancel(false));
+            throw new RecipeExportException("Failed to export recipes to ZIP.", e);
+        }
     }
 
     @Override
@@ -89,25 +131,68 @@ public class DefaultRecipeMarkdownExportService implements RecipeMarkdownExportS
     }
 
     private Resource createZipWithMarkdownFiles(List<RecipeDTO> recipes) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             ZipOutputStream zos = new ZipOutputStream(baos)) {
-
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            MarkdownZipWriter zipWriter = new MarkdownZipWriter(baos);
             for (RecipeDTO recipe : recipes) {
-                String markdown = convertRecipeToMarkdown(recipe);
-                String filename = sanitizeFilename(recipe.name()) + ".md";
+                zipWriter.write(render(recipe));
+            }
+            zipWriter.finish();
+            return new ByteArrayResource(baos.toByteArray());
+
+        } catch (UncheckedIOException e) {
+            throw new RecipeExportException("Failed to export recipes to ZIP.", e);
+        }
+    }
+
+    private RenderedRecipe render(RecipeDTO recipe) {
+        String markdown = convertRecipeToMarkdown(recipe);
+        // The id makes the name unique, since ZIP entry names must be.
+        String filename = sanitizeFilename(recipe.name()) + "_" + sanitizeFilename(recipe.id()) + ".md";
+        return new RenderedRecipe(filename, markdown.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ThreadFactory renderThreadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "markdown-export-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record RenderedRecipe(String filename, byte[] markdown) {}
+
+    /**
+     * Writes rendered recipes as ZIP entries.
+     */
+    private static final class MarkdownZipWriter {
+        private final ZipOutputStream zos;
 
-                ZipEntry entry = new ZipEntry(filename);
-                zos.putNextEntry(entry);
-                zos.write(markdown.getBytes(StandardCharsets.UTF_8));
+        MarkdownZipWriter(OutputStream outputStream) {
+            this.zos = new ZipOutputStream(outputStream);
+        }
+
+        void write(RenderedRecipe recipe) {
+            try {
+                zos.putNextEntry(new ZipEntry(recipe.filename()));
+                zos.write(recipe.markdown());
                 zos.closeEntry();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+        }
 
-            zos.finish();
-            byte[] zipBytes = baos.toByteArray();
-            return new ByteArrayResource(zipBytes);
-
-        } catch (IOException e) {
-            throw new RecipeExportException("Failed to export recipes to ZIP.", e);
+        /**
+         * Writes the ZIP central directory without closing the underlying stream.
+         */
+        void finish() {
+            try {
+                zos.finish();
+                zos.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
     }
 
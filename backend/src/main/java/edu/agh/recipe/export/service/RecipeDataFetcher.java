@@ -1,43 +1,47 @@
 package edu.agh.recipe.export.service;
 
 import edu.agh.recipe.recipes.dto.RecipeDTO;
+import edu.agh.recipe.recipes.dto.RecipeTombstoneDTO;
 import edu.agh.recipe.recipes.service.RecipeService;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Instant;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 @Component
 public class RecipeDataFetcher {
 
     private final RecipeService recipeService;
+    private final int batchSize;
 
-    public RecipeDataFetcher(RecipeService recipeService) {
+    public RecipeDataFetcher(RecipeService recipeService,
+                             @Value("${recipe.export.batch-size:500}") int batchSize) {
         this.recipeService = Objects.requireNonNull(recipeService);
+        this.batchSize = batchSize;
     }
 
-    public List<RecipeDTO> fetchAllRecipes() {
-        List<RecipeDTO> allRecipes = new ArrayList<>();
-
-        int pageNumber = 0;
-        int pageSize = 100;
-        Page<RecipeDTO> page;
+    /**
+     * Streams all recipes from a single database cursor. Only the current batch of
+     * recipes is held in memory. The stream must be closed, e.g. with try-with-resources.
+     */
+    public Stream<RecipeDTO> streamAllRecipes() {
+        return recipeService.streamAllRecipes(batchSize);
+    }
 
-        do {
-            Pageable pageable = PageRequest.of(pageNumber, pageSize);
-            page = recipeService.getAllRecipes(pageable);
-            allRecipes.addAll(page.getContent());
-            pageNumber++;
-        } while (pageNumber < page.getTotalPages());
+    /**
+     * Streams the recipes created or modified after {@code from} and not later than {@code to}.
+     */
+    public Stream<RecipeDTO> streamRecipesModifiedBetween(Instant from, Instant to) {
+        return recipeService.streamRecipesModifiedBetween(from, to, batchSize);
+    }
 
-        return allRecipes;
+    public Stream<RecipeTombstoneDTO> streamRecipesDeletedBetween(Instant from, Instant to) {
+        return recipeService.streamRecipesDeletedBetween(from, to);
     }
 
     public RecipeDTO fetchRecipeById(String id) {
         return recipeService.getRecipeById(id);
     }
-}
\ No newline at end of file
+}
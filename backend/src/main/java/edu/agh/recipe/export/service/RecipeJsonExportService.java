@@ -2,9 +2,24 @@ package edu.agh.recipe.export.service;
 
 import org.springframework.core.io.Resource;
 
+import java.io.OutputStream;
+import java.time.Instant;
+
 public interface RecipeJsonExportService {
 
-    Resource exportRecipesToJson();
+    /**
+     * Writes all recipes as a JSON array to the output stream, one recipe at a time.
+     * The stream is flushed but not closed.
+     */
+    void writeRecipesToJson(OutputStream outputStream);
+
+    /**
+     * Writes the recipes changed and deleted since the given time. The written
+     * object carries the time to pass as {@code since} for the next export; it lags
+     * the current time by a safety window. A recipe changed again can appear in two
+     * consecutive exports, so clients apply them by recipe id.
+     */
+    void writeRecipeChangesToJson(Instant since, OutputStream outputStream);
     Resource exportRecipeToJson(String id);
 
 }
@@ -3,9 +3,15 @@ package edu.agh.recipe.export.service;
 import edu.agh.recipe.recipes.dto.RecipeDTO;
 import org.springframework.core.io.Resource;
 
+import java.io.OutputStream;
+
 public interface RecipeMarkdownExportService {
 
-    Resource exportRecipesToMarkdownZip();
+    /**
+     * Writes all recipes as a ZIP archive of Markdown files to the output stream,
+     * entry by entry. The stream is not closed.
+     */
+    void writeRecipesToMarkdownZip(OutputStream outputStream);
     Resource exportRecipeToMarkdownZip(String id);
     String convertRecipeToMarkdown(RecipeDTO recipe);
 
@@ -1,5 +1,7 @@
 package edu.agh.recipe.images.controller;
 
+import edu.agh.recipe.images.dto.ImageContent;
+import edu.agh.recipe.images.dto.ImageSize;
 import edu.agh.recipe.images.service.ImageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,14 +11,18 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
 import java.util.Objects;
 
 @RestController
@@ -24,25 +30,56 @@ import java.util.Objects;
 @Tag(name = "Image", description = "Image management APIs")
 public class ImageController {
 
+    // Image content never changes after upload, a new image always gets a new id.
+    private static final CacheControl IMAGE_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic()
+            .immutable();
+
     private final ImageService imageService;
 
     public ImageController(ImageService imageService) {
         this.imageService = Objects.requireNonNull(imageService);
     }
 
-    @Operation(summary = "Image by its ID.", description = "Returns the image if present, else 404.")
+    @Operation(
+            summary = "Image by its ID.",
+            description = "Returns the image if present, else 404. The image id is its ETag, so " +
+                    "If-None-Match requests are answered with 304. Range requests return the requested bytes. " +
+                    "With the size parameter (thumbnail/card/full) a scaled down copy is returned; until it is " +
+                    "generated, the original is returned without long-lived caching."
+    )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Image found",
                     content = @Content(schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "206", description = "Requested part of the image",
+                    content = @Content(schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "304", description = "Image not modified", content = @Content),
             @ApiResponse(responseCode = "404", description = "Image not found", content = @Content)
     })
     @GetMapping("/{id}/image")
-    public ResponseEntity<InputStreamResource> getRecipeImageById(
+    public ResponseEntity<Resource> getRecipeImageById(
             @Parameter(description = "Image identifier", required = true, in = ParameterIn.PATH)
-            @PathVariable String id
+            @PathVariable String id,
+            @Parameter(description = "Image size: thumbnail, card or full; the original when omitted")
+            @RequestParam(required = false) String size,
+            @Parameter(hidden = true) @RequestHeader HttpHeaders headers
     ) {
+        // Range and conditional requests rarely need the whole image, they must not make
+        // the cache copy it.
+        boolean fillCache = !headers.containsKey(HttpHeaders.RANGE)
+                && !headers.containsKey(HttpHeaders.IF_NONE_MATCH)
+                && !headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE);
+        ImageContent image = imageService.getImageContent(id, size != null ? ImageSize.fromParameter(size) : null, fillCache);
+        // The smaller copy may still be generated, the URL will return it later.
+        CacheControl cacheControl = image.complete() ? IMAGE_CACHE_CONTROL : CacheControl.noCache();
+
+        // Spring MVC answers conditional requests from the ETag and Last-Modified headers
+        // and serves Range requests from the resource, reading only the requested bytes.
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, imageService.getImageDataById(id).contentType())
-                .body(imageService.getImage(id));
+                .contentType(image.contentType())
+                .eTag(image.etag())
+                .lastModified(image.lastModified())
+                .cacheControl(cacheControl)
+                .body(image.resource());
     }
 }
@@ -0,0 +1,20 @@
+package edu.agh.recipe.images.dto;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+import java.time.Instant;
+
+/**
+ * Bytes of an image ready to be served, with the headers that describe them.
+ *
+ * @param etag id of the stored file the bytes come from
+ * @param complete false when the original is served because the requested size is not generated yet
+ */
+public record ImageContent(
+        Resource resource,
+        String etag,
+        MediaType contentType,
+        Instant lastModified,
+        boolean complete
+) {}
@@ -0,0 +1,38 @@
+package edu.agh.recipe.images.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+/**
+ * Widths of the scaled down copies generated for every uploaded image.
+ */
+public enum ImageSize {
+    THUMBNAIL(160),
+    CARD(480),
+    FULL(1280);
+
+    private final int width;
+
+    ImageSize(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public String parameterName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static ImageSize fromParameter(String parameter) {
+        for (ImageSize size : values()) {
+            if (size.parameterName().equalsIgnoreCase(parameter)) {
+                return size;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown image size: " + parameter);
+    }
+}
@@ -3,61 +3,307 @@ package edu.agh.recipe.images.service;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 import com.mongodb.client.gridfs.model.GridFSFile;
+import edu.agh.recipe.images.dto.ImageContent;
 import edu.agh.recipe.images.dto.ImageDTO;
 import edu.agh.recipe.images.dto.ImageMetadataDTO;
+import edu.agh.recipe.images.dto.ImageSize;
+import edu.agh.recipe.images.service.ImageUploadStream.RejectedImageException;
 import org.bson.Document;
-import org.springframework.core.io.InputStreamResource;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.mongodb.gridfs.GridFsResource;
 import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.data.mongodb.gridfs.GridFsUpload;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * Image bytes are content addressed: every distinct content is stored once, as a
+ * blob file named by its SHA-256 hash with a reference count in its metadata.
+ * Every uploaded image is an empty GridFS file that carries the image metadata
+ * and the id of its blob. Images uploaded before blobs were introduced hold
+ * their own bytes and have no blob id.
+ */
 @Service
 public class DefaultImageService implements ImageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DefaultImageService.class);
+    private static final String FILES_COLLECTION = "fs.files";
+    private static final String CHUNKS_COLLECTION = "fs.chunks";
+    private static final String BLOB_ID_FIELD = "blobId";
+    private static final String SHA256_FIELD = "sha256";
+    private static final String REF_COUNT_FIELD = "refCount";
+    private static final String VARIANT_OF_FIELD = "variantOf";
+
     private final GridFsTemplate gridFsTemplate;
     private final MongoTemplate mongoTemplate;
+    private final ImageVariantService imageVariantService;
+    private final ImageCache imageCache;
+    private final TaskExecutor imageUploadExecutor;
+    private final long maxUploadBytes;
 
-    public DefaultImageService(GridFsTemplate gridFsTemplate, MongoTemplate mongoTemplate) {
+    public DefaultImageService(GridFsTemplate gridFsTemplate, MongoTemplate mongoTemplate,
+                               ImageVariantService imageVariantService, ImageCache imageCache,
+                               @Qualifier("imageUploadExecutor") TaskExecutor imageUploadExecutor,
+                               @Value("${recipe.images.upload.max-bytes:20971520}") long maxUploadBytes) {
         this.gridFsTemplate = Objects.requireNonNull(gridFsTemplate);
         this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+        this.imageVariantService = Objects.requireNonNull(imageVariantService);
+        this.imageCache = Objects.requireNonNull(imageCache);
+        this.imageUploadExecutor = Objects.requireNonNull(imageUploadExecutor);
+        this.maxUploadBytes = maxUploadBytes;
     }
 
+    /**
+     * Stores the file as a new blob while hashing it, then claims the blob for its hash
+     * like a streamed upload does.
+     */
     public String uploadImage(MultipartFile image, ImageMetadataDTO imageMetadataDTO){
+        MessageDigest digest = sha256Digest();
+        ObjectId uploadId = new ObjectId();
+        try (InputStream inputStream = new DigestInputStream(image.getInputStream(), digest)) {
+            gridFsTemplate.store(GridFsUpload.fromStream(inputStream)
+                    .id(uploadId)
+                    .filename(uploadId.toHexString())
+                    .contentType(image.getContentType())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            deleteFile(uploadId);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Couldn't upload image");
+        }
+
+        String sha256 = HexFormat.of().formatHex(digest.digest());
         DBObject metadata = toDBObject(imageMetadataDTO);
-        try (InputStream inputStream = image.getInputStream()){
-            return gridFsTemplate.store(inputStream, image.getOriginalFilename(), image.getContentType(), metadata).toString();
-        } catch (IOException e) {
+        metadata.put(BLOB_ID_FIELD, claimBlob(uploadId, sha256));
+        return gridFsTemplate.store(
+                InputStream.nullInputStream(), image.getOriginalFilename(), image.getContentType(), metadata
+        ).toString();
+    }
+
+    /**
+     * Uploads every image on the upload pool and waits for all of them, so the call
+     * takes about as long as the slowest file. The ids follow the order of the images.
+     */
+    public List<String> uploadImages(List<MultipartFile> images, List<ImageMetadataDTO> imageMetadata) {
+        List<CompletableFuture<String>> uploads = new ArrayList<>(images.size());
+        for (int i = 0; i < images.size(); i++) {
+            MultipartFile image = images.get(i);
+            ImageMetadataDTO metadata = imageMetadata.get(i);
+            uploads.add(CompletableFuture.supplyAsync(() -> uploadImage(image, metadata), imageUploadExecutor));
+        }
+
+        try {
+            CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            // All uploads are finished here; drop the ones that succeeded.
+            uploads.stream()
+                    .filter(upload -> !upload.isCompletedExceptionally())
+                    .forEach(upload -> removeImageById(upload.join()));
+            if (e.getCause() instanceof ResponseStatusException cause) {
+                throw cause;
+            }
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Couldn't upload image");
         }
+
+        return uploads.stream()
+                .map(CompletableFuture::join)
+                .toList();
     }
 
-    public InputStreamResource getImage(String id) {
+    /**
+     * Streams the content into a new blob while checking and hashing it. The hash is
+     * only known at the end, so when the same bytes are already stored the new blob is
+     * dropped and the existing one gets the reference instead.
+     */
+    public String uploadImage(InputStream content, String filename, String contentType,
+                              ImageMetadataDTO imageMetadataDTO) {
+        if (contentType == null || !ImageUploadStream.isSupported(contentType)) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported image type");
+        }
+
+        ImageUploadStream imageStream = new ImageUploadStream(content, contentType, maxUploadBytes);
+        ObjectId uploadId = new ObjectId();
+        try {
+            gridFsTemplate.store(GridFsUpload.fromStream(imageStream)
+                    .id(uploadId)
+                    .filename(uploadId.toHexString())
+                    .contentType(contentType)
+                    .build());
+        } catch (RuntimeException e) {
+            deleteFile(uploadId);
+            RejectedImageException rejection = rejection(e);
+            if (rejection != null) {
+                throw new ResponseStatusException(rejection.getStatus(), rejection.getMessage());
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Couldn't upload image");
+        }
+
+        String sha256 = imageStream.sha256();
+        DBObject metadata = toDBObject(imageMetadataDTO);
+        metadata.put(BLOB_ID_FIELD, claimBlob(uploadId, sha256));
+        return gridFsTemplate.store(
+                InputStream.nullInputStream(), Objects.requireNonNullElse(filename, sha256), contentType, metadata
+        ).toString();
+    }
+
+    /**
+     * Returns the id of the stored blob with the given hash, with one more reference.
+     * Without one, the freshly uploaded file becomes the blob for that hash. The hash
+     * is unique among referenced blobs, so when a concurrent upload of the same bytes
+     * becomes the blob first, this upload is dropped and claims that blob instead.
+     */
+    private String claimBlob(ObjectId uploadId, String sha256) {
+        while (true) {
+            // Blobs without references are being deleted and must not be revived.
+            Document existingBlob = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("metadata." + SHA256_FIELD).is(sha256)
+                            .and("metadata." + REF_COUNT_FIELD).gt(0)),
+                    new Update().inc("metadata." + REF_COUNT_FIELD, 1),
+                    Document.class,
+                    FILES_COLLECTION
+            );
+            if (existingBlob != null) {
+                deleteFile(uploadId);
+                return existingBlob.getObjectId("_id").toHexString();
+            }
+
+            try {
+                mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("_id").is(uploadId)),
+                        new Update().set("filename", sha256)
+                                .set("metadata." + SHA256_FIELD, sha256)
+                                .set("metadata." + REF_COUNT_FIELD, 1),
+                        FILES_COLLECTION
+                );
+            } catch (DuplicateKeyException e) {
+                continue;
+            }
+            imageVariantService.generateVariantsAsync(uploadId.toHexString());
+            return uploadId.toHexString();
+        }
+    }
+
+    /**
+     * Removes the file and any chunks written before its upload failed.
+     */
+    private void deleteFile(ObjectId fileId) {
+        mongoTemplate.remove(Query.query(Criteria.where("files_id").is(fileId)), CHUNKS_COLLECTION);
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(fileId)), FILES_COLLECTION);
+    }
+
+    private RejectedImageException rejection(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RejectedImageException rejection) {
+                return rejection;
+            }
+        }
+        return null;
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Serves the image from the cache, or streams the file that holds its bytes in the
+     * requested size from GridFS and lets the cache copy it in the background. Until
+     * the requested size is generated, the original is returned and not cached, and
+     * the generation is scheduled again.
+     */
+    public ImageContent getImageContent(String id, ImageSize size, boolean fillCache) {
+        Optional<ImageContent> cachedImage = imageCache.get(id, size);
+        if (cachedImage.isPresent()) {
+            return cachedImage.get();
+        }
+
+        GridFsResource image = getImageResource(id);
+        boolean complete = true;
+        if (size != null) {
+            Optional<String> variantId = imageVariantService.findVariantId(image.getGridFSFile(), size);
+            if (variantId.isEmpty()) {
+                // Scheduled again in case the processing queue was full when the image was stored.
+                imageVariantService.generateVariantsAsync(image.getGridFSFile().getObjectId().toHexString());
+                complete = false;
+            } else if (!variantId.get().equals(image.getGridFSFile().getObjectId().toHexString())) {
+                image = getImageResource(variantId.get());
+            }
+        }
+
+        GridFSFile file = image.getGridFSFile();
+        ImageContent content = new ImageContent(
+                image,
+                file.getObjectId().toHexString(),
+                contentType(file),
+                file.getUploadDate().toInstant(),
+                complete
+        );
+        if (fillCache) {
+            imageCache.fillAsync(id, size, content);
+        }
+        return content;
+    }
+
+    /**
+     * Returns the file that holds the bytes of the image: its blob, or the image
+     * file itself for images stored before blobs. The returned resource carries the
+     * file metadata and opens a download stream only when its content is read.
+     */
+    private GridFsResource getImageResource(String id) {
         GridFSFile file = gridFsTemplate.findOne(new Query(Criteria.where("_id").is(id)));
 
         if (file == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
         }
 
-        GridFsResource gridFsResource = gridFsTemplate.getResource(file);
+        String blobId = blobId(file);
+        if (blobId == null) {
+            return gridFsTemplate.getResource(file);
+        }
 
-        try {
-            return new InputStreamResource(gridFsResource.getInputStream());
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Couldn't retrieve image");
+        GridFSFile blob = gridFsTemplate.findOne(new Query(Criteria.where("_id").is(blobId)));
+        if (blob == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Image content not found");
         }
+        return gridFsTemplate.getResource(blob);
+    }
+
+    private MediaType contentType(GridFSFile file) {
+        Document metadata = file.getMetadata();
+        String contentType = metadata != null ? metadata.getString("_contentType") : null;
+        return contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM;
     }
 
     public ImageDTO getImageDataById(String id) {
@@ -70,20 +316,93 @@ public class DefaultImageService implements ImageService {
         return toDTO(file);
     }
 
+    /**
+     * Looks up all images with one query. The result follows the order of
+     * {@code imageIds} and leaves out the ids of images that do not exist, such as
+     * ids still referenced by a recipe after their image was deleted; those ids are
+     * logged together in one warning.
+     */
     public List<ImageDTO> getImagesDataByIds(List<String> imageIds) {
+        if (imageIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, ImageDTO> imagesById = new HashMap<>();
+        for (GridFSFile file : gridFsTemplate.find(new Query(Criteria.where("_id").in(imageIds)))) {
+            ImageDTO image = toDTO(file);
+            imagesById.put(image.id(), image);
+        }
+
+        List<String> missingIds = imageIds.stream()
+                .filter(imageId -> !imagesById.containsKey(imageId))
+                .toList();
+        if (!missingIds.isEmpty()) {
+            logger.warn("Images not found, their ids are left out: {}", missingIds);
+        }
+
         return imageIds.stream()
-                .map(this::getImageDataById)
+                .map(imagesById::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
     public void removeImageById(String id) {
         GridFSFile file = gridFsTemplate.findOne(new Query(Criteria.where("_id").is(id)));
 
-        if (file == null) {
+        // Shared blobs and generated sizes are removed with the images referencing them.
+        if (file == null || !isImageReference(file)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Image not found");
         }
 
+        String blobId = blobId(file);
+        if (blobId == null) {
+            imageVariantService.removeVariants(file);
+        }
         gridFsTemplate.delete(Query.query(Criteria.where("_id").is(id)));
+        imageCache.evict(id);
+
+        if (blobId != null) {
+            releaseBlob(blobId);
+        }
+    }
+
+    /**
+     * Drops one reference to the blob and deletes its chunks and sizes with the last one.
+     */
+    private void releaseBlob(String blobId) {
+        Document blob = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(blobId)),
+                new Update().inc("metadata." + REF_COUNT_FIELD, -1),
+                FindAndModifyOptions.options().returnNew(true),
+                Document.class,
+                FILES_COLLECTION
+        );
+        if (blob == null || blob.get("metadata", Document.class).getInteger(REF_COUNT_FIELD, 0) > 0) {
+            return;
+        }
+
+        GridFSFile blobFile = gridFsTemplate.findOne(new Query(Criteria.where("_id").is(blobId)));
+        if (blobFile != null) {
+            imageVariantService.removeVariants(blobFile);
+        }
+        gridFsTemplate.delete(Query.query(Criteria.where("_id").is(blobId)
+                .and("metadata." + REF_COUNT_FIELD).lte(0)));
+    }
+
+    /**
+     * Tells whether the file is an image itself, either a reference to a blob or a
+     * legacy image holding its own chunks, rather than a blob or a generated size.
+     */
+    private boolean isImageReference(GridFSFile file) {
+        Document metadata = file.getMetadata();
+        return metadata != null
+                && !metadata.containsKey(REF_COUNT_FIELD)
+                && !metadata.containsKey(VARIANT_OF_FIELD);
+    }
+
+    private String blobId(GridFSFile file) {
+        Document metadata = file.getMetadata();
+        return metadata != null ? metadata.getString(BLOB_ID_FIELD) : null;
     }
 
     public void setImagePrimary(String id, boolean newPrimary) {
@@ -97,7 +416,7 @@ public class DefaultImageService implements ImageService {
         mongoTemplate.updateFirst(
                 Query.query(Criteria.where("_id").is(id)),
                 update,
-                "fs.files"
+                FILES_COLLECTION
         );
     }
 
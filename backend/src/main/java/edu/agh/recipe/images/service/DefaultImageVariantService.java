@@ -0,0 +1,303 @@
+package edu.agh.recipe.images.service;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+import edu.agh.recipe.images.dto.ImageSize;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates the image sizes with the JDK ImageIO codecs on a bounded background executor.
+ * Images with transparency are stored as PNG, all others as JPEG. Formats that ImageIO
+ * cannot decode, and images over the pixel limit, are served at their original size.
+ * The dimensions are read from the header before decoding, so a small file declaring a
+ * huge bitmap is never allocated. An image is queued at most once at
+ * a time; when the queue is full it is queued again by the next request for one of its sizes.
+ */
+@Service
+public class DefaultImageVariantService implements ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultImageVariantService.class);
+    private static final String FILES_COLLECTION = "fs.files";
+    private static final String VARIANTS_FIELD = "variants";
+    private static final String VARIANT_OF_FIELD = "variantOf";
+    private static final String BLOB_ID_FIELD = "blobId";
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final GridFsTemplate gridFsTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final TaskExecutor imageProcessingExecutor;
+    private final long maxPixels;
+    private final Set<String> pendingImageIds = ConcurrentHashMap.newKeySet();
+
+    public DefaultImageVariantService(GridFsTemplate gridFsTemplate, MongoTemplate mongoTemplate,
+                                      @Qualifier("imageProcessingExecutor") TaskExecutor imageProcessingExecutor,
+                                      @Value("${recipe.images.processing.max-pixels:40000000}") long maxPixels) {
+        this.gridFsTemplate = Objects.requireNonNull(gridFsTemplate);
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+        this.imageProcessingExecutor = Objects.requireNonNull(imageProcessingExecutor);
+        this.maxPixels = maxPixels;
+    }
+
+    @Override
+    public void generateVariantsAsync(String imageId) {
+        if (!pendingImageIds.add(imageId)) {
+            return;
+        }
+        try {
+            imageProcessingExecutor.execute(() -> {
+                try {
+                    generateVariants(imageId);
+                } finally {
+                    pendingImageIds.remove(imageId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            pendingImageIds.remove(imageId);
+            logger.warn("Image processing queue is full, sizes of image {} will be generated on a later request", imageId);
+        }
+    }
+
+    @Override
+    public void generateMissingVariants() {
+        Query query = new Query(Criteria.where("metadata." + VARIANTS_FIELD).exists(false)
+                .and("metadata." + VARIANT_OF_FIELD).exists(false)
+                .and("metadata." + BLOB_ID_FIELD).exists(false));
+        query.fields().include("_id");
+
+        List<String> imageIds = mongoTemplate.find(query, Document.class, FILES_COLLECTION).stream()
+                .map(file -> file.getObjectId("_id").toHexString())
+                .toList();
+        if (imageIds.isEmpty()) {
+            return;
+        }
+
+        logger.info("Generating sizes of {} images stored without them", imageIds.size());
+        // A single task works through the images one by one, so the backfill never
+        // fills the queue that new uploads depend on.
+        try {
+            imageProcessingExecutor.execute(() -> imageIds.forEach(imageId -> {
+                if (pendingImageIds.add(imageId)) {
+                    try {
+                        generateVariants(imageId);
+                    } finally {
+                        pendingImageIds.remove(imageId);
+                    }
+                }
+            }));
+        } catch (TaskRejectedException e) {
+            logger.warn("Image processing queue is full, sizes of existing images will be generated on request");
+        }
+    }
+
+    @Override
+    public Optional<String> findVariantId(GridFSFile original, ImageSize size) {
+        Document metadata = original.getMetadata();
+        Document variants = metadata != null ? metadata.get(VARIANTS_FIELD, Document.class) : null;
+        return Optional.ofNullable(variants != null ? variants.getString(size.parameterName()) : null);
+    }
+
+    @Override
+    public void removeVariants(GridFSFile original) {
+        String originalId = original.getObjectId().toHexString();
+        List<String> variantIds = Arrays.stream(ImageSize.values())
+                .map(size -> findVariantId(original, size))
+                .flatMap(Optional::stream)
+                .filter(variantId -> !variantId.equals(originalId))
+                .toList();
+        removeFiles(variantIds);
+    }
+
+    /**
+     * Stores the sizes of the image and records them on its file. An image that cannot
+     * be decoded or encoded gets every size pointing at the original, so it is never
+     * attempted again. A failure to read or write GridFS records nothing and the
+     * image is tried again on a later request.
+     */
+    private void generateVariants(String imageId) {
+        List<String> storedIds = new ArrayList<>();
+        try {
+            GridFSFile original = gridFsTemplate.findOne(new Query(Criteria.where("_id").is(imageId)));
+            if (original == null || findVariantId(original, ImageSize.THUMBNAIL).isPresent()) {
+                return;
+            }
+
+            byte[] bytes;
+            try (InputStream inputStream = gridFsTemplate.getResource(original).getInputStream()) {
+                bytes = inputStream.readAllBytes();
+            }
+
+            Map<ImageSize, EncodedVariant> encodedVariants;
+            try {
+                encodedVariants = encodeVariants(bytes);
+            } catch (IOException | RuntimeException e) {
+                logger.info("Image {} cannot be resized, it will be served at its original size: {}", imageId, e.getMessage());
+                encodedVariants = Map.of();
+            }
+
+            Document variants = new Document();
+            for (ImageSize size : ImageSize.values()) {
+                EncodedVariant encodedVariant = encodedVariants.get(size);
+                if (encodedVariant == null) {
+                    // Never scale up, the original already fits.
+                    variants.put(size.parameterName(), imageId);
+                } else {
+                    String variantId = storeVariant(original, encodedVariant, size);
+                    storedIds.add(variantId);
+                    variants.put(size.parameterName(), variantId);
+                }
+            }
+
+            long updated = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(imageId)),
+                    new Update().set("metadata." + VARIANTS_FIELD, variants),
+                    FILES_COLLECTION
+            ).getMatchedCount();
+            if (updated == 0) {
+                // The original was deleted while its sizes were generated.
+                removeFiles(storedIds);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Couldn't generate sizes of image {}", imageId, e);
+            removeFiles(storedIds);
+        }
+    }
+
+    /**
+     * Decodes the image and encodes every size smaller than the original.
+     *
+     * @throws IOException when ImageIO has no codec for the format, for example WebP or CMYK JPEG,
+     *                     or when the image has more pixels than allowed
+     */
+    private Map<ImageSize, EncodedVariant> encodeVariants(byte[] bytes) throws IOException {
+        BufferedImage image = decode(bytes);
+
+        Map<ImageSize, EncodedVariant> encodedVariants = new EnumMap<>(ImageSize.class);
+        for (ImageSize size : ImageSize.values()) {
+            if (image.getWidth() > size.getWidth()) {
+                BufferedImage scaled = scaleToWidth(image, size.getWidth());
+                boolean transparent = scaled.getColorModel().hasAlpha();
+                encodedVariants.put(size, new EncodedVariant(transparent ? encodePng(scaled) : encodeJpeg(scaled), transparent));
+            }
+        }
+        return encodedVariants;
+    }
+
+    private BufferedImage decode(byte[] bytes) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("no ImageIO reader for the format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("image of " + width + "x" + height + " pixels is over the limit of " + maxPixels);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private String storeVariant(GridFSFile original, EncodedVariant variant, ImageSize size) {
+        Document metadata = new Document(VARIANT_OF_FIELD, original.getObjectId().toHexString())
+                .append("size", size.parameterName());
+        ObjectId id = gridFsTemplate.store(
+                new ByteArrayInputStream(variant.bytes()),
+                Objects.requireNonNullElse(original.getFilename(), "image") + "-" + size.parameterName() + (variant.transparent() ? ".png" : ".jpg"),
+                variant.transparent() ? "image/png" : "image/jpeg",
+                metadata
+        );
+        return id.toHexString();
+    }
+
+    private void removeFiles(List<String> ids) {
+        if (!ids.isEmpty()) {
+            gridFsTemplate.delete(Query.query(Criteria.where("_id").in(ids)));
+        }
+    }
+
+    /**
+     * Scales the image down in steps of at most one half, since a single bilinear
+     * step over a large reduction skips most source pixels and looks jagged.
+     */
+    private static BufferedImage scaleToWidth(BufferedImage source, int targetWidth) {
+        int targetHeight = Math.max(1, Math.round((float) source.getHeight() * targetWidth / source.getWidth()));
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+
+    private record EncodedVariant(byte[] bytes, boolean transparent) {}
+}
@@ -0,0 +1,362 @@
+package edu.agh.recipe.images.service;
+
+import edu.agh.recipe.images.dto.ImageContent;
+import edu.agh.recipe.images.dto.ImageSize;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Bounded cache of image bytes keyed by image id and size, so popular images are
+ * served without reading GridFS chunks. The bytes are kept in direct buffers outside
+ * the Java heap, and every request reads them through its own view of the buffer.
+ *
+ * <p>A miss is served from GridFS and never waits for the cache. An image is copied
+ * into the cache in the background, and only once it is requested again: how often
+ * every key is requested is estimated by a small count-min sketch whose counts are
+ * halved periodically, so the estimate follows current traffic. When the cache is
+ * full, the new image is admitted only if it is requested more often than the least
+ * recently used images it would evict, so a scan over many images cannot flush the
+ * popular ones.</p>
+ *
+ * <p>Hit, miss and eviction counts are published as {@code cache.gets} and
+ * {@code cache.evictions} meters tagged with {@code cache=images}.</p>
+ */
+@Component
+public class ImageCache {
+
+    private static final String CACHE_NAME = "images";
+    private static final String ORIGINAL_SIZE = "original";
+
+    private static final int MIN_ADMISSION_FREQUENCY = 2;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final TaskExecutor imageCacheExecutor;
+    // Guarded by this.
+    private final LinkedHashMap<String, CachedImage> imagesByKey = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch frequencies;
+    private final Set<String> loadingKeys = new HashSet<>();
+
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ImageCache(@Value("${recipe.images.cache.max-bytes:67108864}") long maxBytes,
+                      @Value("${recipe.images.cache.max-entry-bytes:2097152}") long maxEntryBytes,
+                      @Value("${recipe.images.cache.sketch-width:16384}") int sketchWidth,
+                      @Qualifier("imageCacheExecutor") TaskExecutor imageCacheExecutor,
+                      MeterRegistry meterRegistry) {
+        if (maxBytes <= 0 || maxEntryBytes <= 0) {
+            throw new IllegalArgumentException("Image cache sizes must be positive.");
+        }
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+        this.frequencies = new FrequencySketch(sketchWidth);
+        this.imageCacheExecutor = Objects.requireNonNull(imageCacheExecutor);
+
+        FunctionCounter.builder("cache.gets", this, ImageCache::getHitCount)
+                .tags("cache", CACHE_NAME, "result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", this, ImageCache::getMissCount)
+                .tags("cache", CACHE_NAME, "result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", this, ImageCache::getEvictionCount)
+                .tags("cache", CACHE_NAME)
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, ImageCache::getUsedBytes)
+                .tags("cache", CACHE_NAME)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached image and counts the request towards the admission of the image.
+     */
+    public synchronized Optional<ImageContent> get(String imageId, ImageSize size) {
+        String key = key(imageId, size);
+        frequencies.increment(key);
+        CachedImage image = imagesByKey.get(key);
+        if (image == null) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(image.toContent());
+    }
+
+    /**
+     * Copies complete content that fits the entry size limit into the cache in the
+     * background, once it has been requested more than once. The content is read
+     * through a new stream of its resource, the caller keeps its own.
+     */
+    public void fillAsync(String imageId, ImageSize size, ImageContent content) {
+        String key = key(imageId, size);
+        synchronized (this) {
+            if (!content.complete() || frequencies.frequency(key) < MIN_ADMISSION_FREQUENCY
+                    || imagesByKey.containsKey(key) || !loadingKeys.add(key)) {
+                return;
+            }
+        }
+        try {
+            imageCacheExecutor.execute(() -> {
+                try {
+                    load(key, content);
+                } finally {
+                    synchronized (this) {
+                        loadingKeys.remove(key);
+                    }
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // The image is cached on one of its next requests instead.
+            synchronized (this) {
+                loadingKeys.remove(key);
+            }
+        }
+    }
+
+    private void load(String key, ImageContent content) {
+        ByteBuffer bytes;
+        try {
+            long length = content.resource().contentLength();
+            if (length > maxEntryBytes) {
+                return;
+            }
+            bytes = read(content.resource().getInputStream(), (int) length);
+        } catch (IOException e) {
+            return;
+        }
+        if (bytes != null) {
+            admit(key, new CachedImage(content.etag(), content.contentType(), content.lastModified(), bytes));
+        }
+    }
+
+    /**
+     * Stores the image if there is room for it, or if it is requested more often than
+     * every least recently used image that has to be evicted to make room.
+     */
+    private synchronized void admit(String key, CachedImage image) {
+        if (!loadingKeys.contains(key)) {
+            // The image was evicted while it was read.
+            return;
+        }
+        long size = image.bytes().capacity();
+        int frequency = frequencies.frequency(key);
+
+        List<String> victims = new ArrayList<>();
+        long freedBytes = 0;
+        Iterator<Map.Entry<String, CachedImage>> eldest = imagesByKey.entrySet().iterator();
+        while (usedBytes - freedBytes + size > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, CachedImage> victim = eldest.next();
+            if (frequencies.frequency(victim.getKey()) >= frequency) {
+                return;
+            }
+            victims.add(victim.getKey());
+            freedBytes += victim.getValue().bytes().capacity();
+        }
+
+        victims.forEach(this::remove);
+        evictions += victims.size();
+        remove(key);
+        imagesByKey.put(key, image);
+        usedBytes += size;
+    }
+
+    /**
+     * Removes all sizes of the image, and drops copies of it that are still being read.
+     */
+    public synchronized void evict(String imageId) {
+        remove(key(imageId, null));
+        loadingKeys.remove(key(imageId, null));
+        for (ImageSize size : ImageSize.values()) {
+            remove(key(imageId, size));
+            loadingKeys.remove(key(imageId, size));
+        }
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    private void remove(String key) {
+        CachedImage removed = imagesByKey.remove(key);
+        if (removed != null) {
+            usedBytes -= removed.bytes().capacity();
+        }
+    }
+
+    private static String key(String imageId, ImageSize size) {
+        return imageId + ':' + (size != null ? size.parameterName() : ORIGINAL_SIZE);
+    }
+
+    /**
+     * Reads exactly {@code length} bytes into a new direct buffer, or returns null
+     * when the stream ends early.
+     */
+    private static ByteBuffer read(InputStream inputStream, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        try (ReadableByteChannel channel = Channels.newChannel(inputStream)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+        }
+        return buffer.flip().asReadOnlyBuffer();
+    }
+
+    /**
+     * Count-min sketch of request counts with four rows of 4-bit counters. After as many
+     * increments as ten times its width, all counters are halved, so images that were
+     * popular long ago lose their advantage.
+     */
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int width) {
+            int tableWidth = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+            this.counters = new byte[DEPTH][tableWidth];
+            this.mask = tableWidth - 1;
+            this.sampleSize = 10 * tableWidth;
+        }
+
+        void increment(String key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                halve();
+            }
+        }
+
+        int frequency(String key) {
+            int hash = key.hashCode();
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, counters[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int mixed = hash * SEEDS[row];
+            return (mixed ^ (mixed >>> 16)) & mask;
+        }
+
+        private void halve() {
+            for (byte[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+
+    private record CachedImage(String etag, MediaType contentType, Instant lastModified, ByteBuffer bytes) {
+
+        ImageContent toContent() {
+            return new ImageContent(new BufferResource(bytes), etag, contentType, lastModified, true);
+        }
+    }
+
+    /**
+     * Resource reading a cached buffer. Every stream gets its own position, so
+     * concurrent and ranged requests share the same bytes without copying them.
+     */
+    private static final class BufferResource extends AbstractResource {
+        private final ByteBuffer bytes;
+
+        BufferResource(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            ByteBuffer view = bytes.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return view.hasRemaining() ? view.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] target, int offset, int length) {
+                    if (length == 0) {
+                        return 0;
+                    }
+                    if (!view.hasRemaining()) {
+                        return -1;
+                    }
+                    int count = Math.min(length, view.remaining());
+                    view.get(target, offset, count);
+                    return count;
+                }
+
+                @Override
+                public long skip(long n) {
+                    int count = (int) Math.max(0, Math.min(n, view.remaining()));
+                    view.position(view.position() + count);
+                    return count;
+                }
+
+                @Override
+                public int available() {
+                    return view.remaining();
+                }
+            };
+        }
+
+        @Override
+        public long contentLength() {
+            return bytes.capacity();
+        }
+
+        @Override
+        public String getDescription() {
+            return "Cached image [" + bytes.capacity() + " bytes]";
+        }
+    }
+}
@@ -1,16 +1,25 @@
 package edu.agh.recipe.images.service;
 
+import edu.agh.recipe.images.dto.ImageContent;
 import edu.agh.recipe.images.dto.ImageDTO;
 import edu.agh.recipe.images.dto.ImageMetadataDTO;
-import org.springframework.core.io.InputStreamResource;
+import edu.agh.recipe.images.dto.ImageSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
 
 public interface ImageService {
     String uploadImage(MultipartFile image, ImageMetadataDTO imageMetadataDTO);
-    InputStreamResource getImage(String id);
+    // Stores the images in parallel; if any of them fails, none are kept
+    List<String> uploadImages(List<MultipartFile> images, List<ImageMetadataDTO> imageMetadata);
+    // Stores the image while it is read from the stream, without buffering it
+    String uploadImage(InputStream content, String filename, String contentType, ImageMetadataDTO imageMetadataDTO);
+    // Bytes of the image in the requested size, or of the original when size is null;
+    // fillCache is false for requests that do not read the whole image, such as Range requests
+    ImageContent getImageContent(String id, ImageSize size, boolean fillCache);
     ImageDTO getImageDataById(String id);
+    // Images in the order of the ids; ids of missing images are left out and logged
     List<ImageDTO> getImagesDataByIds(List<String> imageIds);
     void removeImageById(String id);
     void setImagePrimary(String id, boolean newPrimary);
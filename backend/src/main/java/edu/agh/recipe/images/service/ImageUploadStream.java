@@ -0,0 +1,146 @@
+package edu.agh.recipe.images.service;
+
+import org.springframework.http.HttpStatus;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Checks an uploaded image while it is read: the first bytes must match the
+ * signature of the declared content type and the total size must stay within
+ * the limit. The SHA-256 hash of the content is computed on the way through.
+ * A rejected upload fails the read with {@link RejectedImageException}.
+ */
+class ImageUploadStream extends FilterInputStream {
+
+    private static final Map<String, byte[][]> SIGNATURES = Map.of(
+            "image/jpeg", new byte[][]{{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}},
+            "image/png", new byte[][]{{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}},
+            "image/gif", new byte[][]{ascii("GIF87a"), ascii("GIF89a")},
+            "image/webp", new byte[][]{ascii("RIFF")}
+    );
+    private static final byte[] WEBP_FORMAT = ascii("WEBP");
+    private static final int HEADER_LENGTH = 12;
+
+    private final String contentType;
+    private final long maxBytes;
+    private final MessageDigest digest;
+    private final byte[] header = new byte[HEADER_LENGTH];
+
+    private long size;
+    private boolean headerChecked;
+
+    ImageUploadStream(InputStream in, String contentType, long maxBytes) {
+        super(in);
+        this.contentType = contentType;
+        this.maxBytes = maxBytes;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    static boolean isSupported(String contentType) {
+        return SIGNATURES.containsKey(contentType);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int count = read(single, 0, 1);
+        return count < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        int count = in.read(target, offset, length);
+        if (count < 0) {
+            if (!headerChecked) {
+                checkHeader();
+            }
+            return count;
+        }
+
+        if (size < HEADER_LENGTH) {
+            System.arraycopy(target, offset, header, (int) size, (int) Math.min(count, HEADER_LENGTH - size));
+        }
+        size += count;
+        if (size > maxBytes) {
+            throw new RejectedImageException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Image is larger than " + maxBytes + " bytes.");
+        }
+        if (!headerChecked && size >= HEADER_LENGTH) {
+            checkHeader();
+        }
+        digest.update(target, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        // Every byte has to be hashed and counted.
+        return 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Hex encoded hash of the bytes read so far.
+     */
+    String sha256() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void checkHeader() throws RejectedImageException {
+        headerChecked = true;
+        byte[] start = Arrays.copyOf(header, (int) Math.min(size, HEADER_LENGTH));
+        boolean matches = Arrays.stream(SIGNATURES.get(contentType))
+                .anyMatch(signature -> startsWith(start, 0, signature));
+        if (matches && contentType.equals("image/webp")) {
+            matches = startsWith(start, 8, WEBP_FORMAT);
+        }
+        if (!matches) {
+            throw new RejectedImageException(HttpStatus.BAD_REQUEST, "Image content is not " + contentType + ".");
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, byte[] prefix) {
+        return bytes.length >= offset + prefix.length
+                && Arrays.equals(bytes, offset, offset + prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Checked so that GridFS aborts the upload and removes the chunks written so far.
+     */
+    static class RejectedImageException extends IOException {
+        private final HttpStatus status;
+
+        RejectedImageException(HttpStatus status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        HttpStatus getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package edu.agh.recipe.images.service;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+import edu.agh.recipe.images.dto.ImageSize;
+
+import java.util.Optional;
+
+/**
+ * Scaled down copies of uploaded images, stored as separate GridFS files.
+ * The ids of the copies are recorded in the metadata of the file holding the
+ * original bytes, so images that share their bytes also share their copies.
+ */
+public interface ImageVariantService {
+
+    /**
+     * Schedules the generation of all sizes of the image in the background. Does
+     * nothing while the image is already scheduled.
+     */
+    void generateVariantsAsync(String imageId);
+
+    /**
+     * Schedules the generation of sizes for all images stored without them, such as
+     * images uploaded before sizes existed or while the processing queue was full.
+     */
+    void generateMissingVariants();
+
+    /**
+     * Returns the id of the file to serve for the requested size: a scaled down copy,
+     * or the original when it is not larger than the requested size or could not be
+     * decoded. Empty while the copies have not been generated yet.
+     */
+    Optional<String> findVariantId(GridFSFile original, ImageSize size);
+
+    void removeVariants(GridFSFile original);
+}
@@ -1,15 +1,23 @@
 package edu.agh.recipe.importing.controller;
 
+import edu.agh.recipe.importing.dto.ImportBatchStatus;
 import edu.agh.recipe.importing.dto.ImportJobStatus;
+import edu.agh.recipe.importing.dto.RecipeImportBatchRequest;
 import edu.agh.recipe.importing.dto.RecipeImportRequest;
 import edu.agh.recipe.importing.service.ImportJobService;
 import edu.agh.recipe.importing.service.RecipeImportService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.net.URI;
 import java.util.Objects;
@@ -19,6 +27,8 @@ import java.util.Objects;
 @Tag(name = "Recipe Import", description = "Recipe import APIs")
 public class RecipeImportController {
 
+    private static final int MAX_JOBS_PAGE_SIZE = 500;
+
     private final RecipeImportService recipeImportService;
     private final ImportJobService importJobService;
 
@@ -31,7 +41,8 @@ public class RecipeImportController {
     @Operation(summary = "Start a recipe import job")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Import job started"),
-            @ApiResponse(responseCode = "400", description = "Unsupported source")
+            @ApiResponse(responseCode = "400", description = "Unsupported source"),
+            @ApiResponse(responseCode = "429", description = "Too many imports in progress")
     })
     public ResponseEntity<?> startImportJob(@RequestBody RecipeImportRequest request) {
         String jobId = importJobService.startImportJob(request);
@@ -52,4 +63,61 @@ public class RecipeImportController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @PostMapping("/batches")
+    @Operation(
+            summary = "Start a batch recipe import",
+            description = "Starts an import job for every URL and groups them under one batch id. URLs of " +
+                    "different sites are imported concurrently, with a limited number of requests per site."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Batch import started"),
+            @ApiResponse(responseCode = "400", description = "Invalid request"),
+            @ApiResponse(responseCode = "429", description = "Too many imports in progress")
+    })
+    public ResponseEntity<ImportBatchStatus> startBatchImport(@Valid @RequestBody RecipeImportBatchRequest request) {
+        String batchId = importJobService.startBatchImport(request.urls());
+        return ResponseEntity
+                .created(URI.create("/recipes/import/batches/" + batchId))
+                .body(importJobService.getBatchStatus(batchId).orElseThrow());
+    }
+
+    @GetMapping("/batches/{batchId}")
+    @Operation(summary = "Get the progress of a batch import as job counts per status")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch progress returned"),
+            @ApiResponse(responseCode = "404", description = "Batch not found")
+    })
+    public ResponseEntity<ImportBatchStatus> getBatchImportStatus(@PathVariable String batchId) {
+        return importJobService.getBatchStatus(batchId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/batches/{batchId}/jobs")
+    @Operation(summary = "Get a page of the import jobs of a batch, ordered by job id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Jobs returned"),
+            @ApiResponse(responseCode = "400", description = "Invalid page number or size"),
+            @ApiResponse(responseCode = "404", description = "Batch not found")
+    })
+    public ResponseEntity<Page<ImportJobStatus>> getBatchImportJobs(
+            @PathVariable String batchId,
+            @Parameter(description = "Page number (zero-based)")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Number of jobs per page, from 1 to " + MAX_JOBS_PAGE_SIZE)
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        if (page < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page number must not be negative.");
+        }
+        if (size < 1 || size > MAX_JOBS_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Page size must be between 1 and " + MAX_JOBS_PAGE_SIZE + ".");
+        }
+        Page<ImportJobStatus> jobs = importJobService.getBatchJobs(batchId, PageRequest.of(page, size));
+        if (jobs.getTotalElements() == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(jobs);
+    }
 }
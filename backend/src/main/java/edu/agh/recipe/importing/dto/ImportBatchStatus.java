@@ -0,0 +1,39 @@
+package edu.agh.recipe.importing.dto;
+
+import java.util.Map;
+
+/**
+ * Progress of a batch import, counted from the import jobs of its URLs. The jobs
+ * themselves are listed page by page.
+ */
+public record ImportBatchStatus(
+        String batchId,
+        String status, // IN_PROGRESS, COMPLETED
+        long total,
+        long queued,
+        long inProgress,
+        long completed,
+        long failed
+) {
+
+    /**
+     * @param countsByStatus number of jobs of the batch for every job status
+     */
+    public static ImportBatchStatus of(String batchId, Map<String, Long> countsByStatus) {
+        long queued = 0;
+        long inProgress = 0;
+        long completed = 0;
+        long failed = 0;
+        for (Map.Entry<String, Long> entry : countsByStatus.entrySet()) {
+            switch (entry.getKey()) {
+                case "QUEUED" -> queued += entry.getValue();
+                case "COMPLETED" -> completed += entry.getValue();
+                case "FAILED" -> failed += entry.getValue();
+                default -> inProgress += entry.getValue();
+            }
+        }
+        String status = queued + inProgress > 0 ? "IN_PROGRESS" : "COMPLETED";
+        return new ImportBatchStatus(batchId, status, queued + inProgress + completed + failed,
+                queued, inProgress, completed, failed);
+    }
+}
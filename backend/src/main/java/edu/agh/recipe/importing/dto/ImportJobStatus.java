@@ -3,10 +3,12 @@ package edu.agh.recipe.importing.dto;
 import edu.agh.recipe.recipes.model.Recipe;
 
 public class ImportJobStatus {
-    private String jobId;
-    private String status; // IN_PROGRESS, COMPLETED, FAILED
-    private RecipeImportPreviewDTO result;
-    private String errorMessage;
+    // Updated by the import thread and read by request threads.
+    private volatile String jobId;
+    private volatile String batchId;
+    private volatile String status; // QUEUED, IN_PROGRESS, COMPLETED, FAILED
+    private volatile RecipeImportPreviewDTO result;
+    private volatile String errorMessage;
 
     public ImportJobStatus(String jobId, String status) {
         this.jobId = jobId;
@@ -17,6 +19,10 @@ public class ImportJobStatus {
         return jobId;
     }
 
+    public String getBatchId() {
+        return batchId;
+    }
+
     public String getStatus() {
         return status;
     }
@@ -33,6 +39,10 @@ public class ImportJobStatus {
         this.jobId = jobId;
     }
 
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
     public void setStatus(String status) {
         this.status = status;
     }
@@ -0,0 +1,19 @@
+package edu.agh.recipe.importing.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Request for importing many recipes from external URLs")
+public record RecipeImportBatchRequest(
+
+    @Schema(description = "URLs of the recipe pages", example = "[\"https://www.mojewypieki.com/przepis/sernik-nowojorski\"]")
+    @NotEmpty
+    @Size(max = 5000)
+    List<@NotBlank @Size(min = 3, max = 2048) String> urls
+
+)
+{}
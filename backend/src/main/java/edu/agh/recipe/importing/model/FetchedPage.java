@@ -0,0 +1,14 @@
+package edu.agh.recipe.importing.model;
+
+/**
+ * Raw HTML of a downloaded page.
+ *
+ * @param url final URL of the page, after redirects
+ * @param charset charset declared by the server, or null when it was not given
+ */
+public record FetchedPage(
+        String url,
+        byte[] body,
+        String charset
+) {
+}
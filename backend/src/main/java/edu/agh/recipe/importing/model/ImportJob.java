@@ -0,0 +1,95 @@
+package edu.agh.recipe.importing.model;
+
+import edu.agh.recipe.importing.dto.ImportJobStatus;
+import edu.agh.recipe.importing.dto.RecipeImportPreviewDTO;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Stored import job. MongoDB removes it once {@code expiresAt} has passed.
+ */
+@Document("importJobs")
+public class ImportJob {
+    @Id
+    private String jobId;
+    @Indexed(sparse = true)
+    private String batchId;
+    private String status;
+    private RecipeImportPreviewDTO result;
+    private String errorMessage;
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+
+    public ImportJob() {
+    }
+
+    public static ImportJob fromStatus(ImportJobStatus jobStatus, Instant expiresAt) {
+        ImportJob job = new ImportJob();
+        job.jobId = jobStatus.getJobId();
+        job.batchId = jobStatus.getBatchId();
+        job.status = jobStatus.getStatus();
+        job.result = jobStatus.getResult();
+        job.errorMessage = jobStatus.getErrorMessage();
+        job.expiresAt = expiresAt;
+        return job;
+    }
+
+    public ImportJobStatus toStatus() {
+        ImportJobStatus jobStatus = new ImportJobStatus(jobId, status);
+        jobStatus.setBatchId(batchId);
+        jobStatus.setResult(result);
+        jobStatus.setErrorMessage(errorMessage);
+        return jobStatus;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public RecipeImportPreviewDTO getResult() {
+        return result;
+    }
+
+    public void setResult(RecipeImportPreviewDTO result) {
+        this.result = result;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,14 @@
+package edu.agh.recipe.importing.model;
+
+import java.util.List;
+
+/**
+ * Texts extracted from a recipe page with the queries of its {@link RecipeImportFieldQuery}.
+ */
+public record RecipePageFields(
+        String title,
+        String description,
+        List<String> ingredients,
+        List<String> steps
+) {
+}
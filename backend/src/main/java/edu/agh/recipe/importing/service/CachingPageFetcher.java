@@ -0,0 +1,320 @@
+package edu.agh.recipe.importing.service;
+
+import edu.agh.recipe.importing.model.FetchedPage;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Fetches pages through a cache on the local disk, keyed by the normalized URL.
+ * Every entry is a single file holding the page headers followed by the gzipped
+ * page, replaced atomically, so a reader never sees the headers of one version
+ * with the body of another. Entries younger than the maximum age are served without
+ * contacting the site; older ones are revalidated with a conditional request and
+ * served from disk when the site answers 304. Pages sent with
+ * {@code Cache-Control: no-store} or {@code private} are not stored. When the cache
+ * grows over its size limit, the least recently used entries are deleted.
+ *
+ * <p>In offline mode only cached pages are served, which lets imports be replayed
+ * without network access.</p>
+ */
+@Component
+public class CachingPageFetcher implements PageFetchService {
+    private static final Logger log = LoggerFactory.getLogger(CachingPageFetcher.class);
+
+    private static final String ENTRY_SUFFIX = ".page";
+    private static final String TEMP_PREFIX = "page-write-";
+    private static final String TEMP_SUFFIX = ".page.tmp";
+    // Entries are named after the SHA-256 of the URL, see key(String).
+    private static final Pattern ENTRY_FILE_NAME = Pattern.compile("[0-9a-f]{64}" + Pattern.quote(ENTRY_SUFFIX));
+    // Written at the start of every entry, entries of other versions are dropped.
+    private static final int FORMAT_VERSION = 1;
+    private static final Set<String> NOT_STORED_DIRECTIVES = Set.of("no-store", "private");
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Duration maxAge;
+    private final boolean offline;
+
+    // Entry sizes in access order, mirrored from the files on disk.
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    public CachingPageFetcher(
+            @Value("${recipe.import.fetch-cache.directory:${java.io.tmpdir}/recipe-import-cache}") Path directory,
+            @Value("${recipe.import.fetch-cache.max-bytes:104857600}") long maxBytes,
+            @Value("${recipe.import.fetch-cache.max-age:10m}") Duration maxAge,
+            @Value("${recipe.import.fetch-cache.offline:false}") boolean offline) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.maxAge = Objects.requireNonNull(maxAge);
+        this.offline = offline;
+        loadEntries();
+    }
+
+    @Override
+    public FetchedPage fetch(String url) throws IOException {
+        String key = key(url);
+        Optional<CachedPage> cachedPage = read(key);
+
+        if (cachedPage.isPresent() && (offline || cachedPage.get().fetchedAt().plus(maxAge).isAfter(Instant.now()))) {
+            return cachedPage.get().toFetchedPage();
+        }
+        if (offline) {
+            throw new FileNotFoundException("Page not cached in offline mode: " + url);
+        }
+
+        Connection connection = Jsoup.connect(url).ignoreHttpErrors(true);
+        cachedPage.ifPresent(page -> {
+            if (page.etag() != null) {
+                connection.header(HttpHeaders.IF_NONE_MATCH, page.etag());
+            }
+            if (page.lastModified() != null) {
+                connection.header(HttpHeaders.IF_MODIFIED_SINCE, page.lastModified());
+            }
+        });
+        Connection.Response response = connection.execute();
+
+        boolean storable = isStorable(response.header(HttpHeaders.CACHE_CONTROL));
+        if (response.statusCode() == 304 && cachedPage.isPresent()) {
+            CachedPage page = cachedPage.get().refreshed(Instant.now());
+            if (storable) {
+                write(key, page);
+            } else {
+                remove(key);
+            }
+            return page.toFetchedPage();
+        }
+        if (response.statusCode() >= 400) {
+            throw new HttpStatusException("HTTP error fetching URL", response.statusCode(), url);
+        }
+
+        CachedPage page = new CachedPage(
+                response.url().toExternalForm(),
+                response.bodyAsBytes(),
+                response.charset(),
+                response.header(HttpHeaders.ETAG),
+                response.header(HttpHeaders.LAST_MODIFIED),
+                Instant.now()
+        );
+        if (storable) {
+            write(key, page);
+        } else {
+            remove(key);
+        }
+        return page.toFetchedPage();
+    }
+
+    /**
+     * Whether the Cache-Control header allows keeping the page. A private page may
+     * differ per user, and this cache is shared by all imports.
+     */
+    static boolean isStorable(String cacheControl) {
+        if (cacheControl == null) {
+            return true;
+        }
+        for (String directive : cacheControl.split(",")) {
+            String name = directive.split("=", 2)[0].trim().toLowerCase(Locale.ROOT);
+            if (NOT_STORED_DIRECTIVES.contains(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Optional<CachedPage> read(String key) {
+        Path entryFile = directory.resolve(key + ENTRY_SUFFIX);
+        synchronized (this) {
+            if (entrySizes.get(key) == null) {
+                return Optional.empty();
+            }
+        }
+
+        try {
+            CachedPage page;
+            try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(entryFile)))) {
+                if (inputStream.readInt() != FORMAT_VERSION) {
+                    throw new IOException("Unknown cache entry format");
+                }
+                String url = inputStream.readUTF();
+                String charset = readNullableUTF(inputStream);
+                String etag = readNullableUTF(inputStream);
+                String lastModified = readNullableUTF(inputStream);
+                Instant fetchedAt = Instant.ofEpochMilli(inputStream.readLong());
+                byte[] body = new GZIPInputStream(inputStream).readAllBytes();
+                page = new CachedPage(url, body, charset, etag, lastModified, fetchedAt);
+            }
+            Files.setLastModifiedTime(entryFile, FileTime.from(Instant.now()));
+            return Optional.of(page);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Dropping unreadable cached page {}", key, e);
+            remove(key);
+            return Optional.empty();
+        }
+    }
+
+    private void write(String key, CachedPage page) {
+        try {
+            Path entryFile = directory.resolve(key + ENTRY_SUFFIX);
+            Path tempFile = Files.createTempFile(directory, TEMP_PREFIX + key, TEMP_SUFFIX);
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                outputStream.writeInt(FORMAT_VERSION);
+                outputStream.writeUTF(page.url());
+                writeNullableUTF(outputStream, page.charset());
+                writeNullableUTF(outputStream, page.etag());
+                writeNullableUTF(outputStream, page.lastModified());
+                outputStream.writeLong(page.fetchedAt().toEpochMilli());
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+                gzipOutputStream.write(page.body());
+                gzipOutputStream.finish();
+            }
+            Files.move(tempFile, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long size = Files.size(entryFile);
+            synchronized (this) {
+                Long previousSize = entrySizes.put(key, size);
+                usedBytes += size - (previousSize != null ? previousSize : 0);
+                evictOverLimit();
+            }
+        } catch (IOException e) {
+            // The page was fetched, caching it is only an optimization.
+            log.warn("Couldn't cache page {}", page.url(), e);
+            remove(key);
+        }
+    }
+
+    private static void writeNullableUTF(DataOutputStream outputStream, String value) throws IOException {
+        outputStream.writeBoolean(value != null);
+        if (value != null) {
+            outputStream.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInputStream inputStream) throws IOException {
+        return inputStream.readBoolean() ? inputStream.readUTF() : null;
+    }
+
+    private void evictOverLimit() {
+        Iterator<Map.Entry<String, Long>> eldest = entrySizes.entrySet().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            usedBytes -= entry.getValue();
+            eldest.remove();
+            deleteFiles(entry.getKey());
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = entrySizes.remove(key);
+        if (size != null) {
+            usedBytes -= size;
+        }
+        deleteFiles(key);
+    }
+
+    private void deleteFiles(String key) {
+        try {
+            Files.deleteIfExists(directory.resolve(key + ENTRY_SUFFIX));
+        } catch (IOException e) {
+            log.warn("Couldn't delete cached page {}", key, e);
+        }
+    }
+
+    /**
+     * Rebuilds the index from the files left by earlier runs, oldest access first.
+     */
+    private synchronized void loadEntries() throws IOException {
+        List<Path> files;
+        try (Stream<Path> entries = Files.list(directory)) {
+            files = entries.toList();
+        }
+        // Temporary files are left behind by writes interrupted by a shutdown. Only files
+        // this class writes are touched, the directory may be shared with other data.
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            if (fileName.startsWith(TEMP_PREFIX) && fileName.endsWith(TEMP_SUFFIX)) {
+                Files.deleteIfExists(file);
+            }
+        }
+        List<Path> entryFiles = files.stream()
+                .filter(file -> ENTRY_FILE_NAME.matcher(file.getFileName().toString()).matches())
+                .toList();
+
+        Map<Path, FileTime> accessTimes = new HashMap<>();
+        for (Path entryFile : entryFiles) {
+            accessTimes.put(entryFile, Files.getLastModifiedTime(entryFile));
+        }
+        List<Path> byAccess = new ArrayList<>(entryFiles);
+        byAccess.sort(Comparator.comparing(accessTimes::get));
+
+        for (Path entryFile : byAccess) {
+            String fileName = entryFile.getFileName().toString();
+            long size = Files.size(entryFile);
+            entrySizes.put(fileName.substring(0, fileName.length() - ENTRY_SUFFIX.length()), size);
+            usedBytes += size;
+        }
+        evictOverLimit();
+    }
+
+    /**
+     * Hash of the URL with a lowercase scheme and host, without the default port and
+     * the fragment, so different spellings of one page share an entry.
+     */
+    static String key(String url) {
+        String normalizedUrl;
+        try {
+            URI uri = new URI(url).normalize();
+            String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : null;
+            String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : null;
+            int port = uri.getPort();
+            if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+                port = -1;
+            }
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            normalizedUrl = new URI(scheme, null, host, port, null, null, null) + path
+                    + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        } catch (URISyntaxException e) {
+            normalizedUrl = url;
+        }
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalizedUrl.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    private record CachedPage(String url, byte[] body, String charset, String etag, String lastModified,
+                              Instant fetchedAt) {
+
+        CachedPage refreshed(Instant now) {
+            return new CachedPage(url, body, charset, etag, lastModified, now);
+        }
+
+        FetchedPage toFetchedPage() {
+            return new FetchedPage(url, body, charset);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package edu.agh.recipe.importing.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps imports polite towards the source sites: at most a few requests run against
+ * one domain at a time, and consecutive requests to it start a minimum interval apart.
+ *
+ * <p>Imports wait in a queue per domain and are handed to the import executor only
+ * once their domain has a free slot and its interval has passed, so executor threads
+ * never wait for a busy site and a large batch for one site does not hold back the
+ * others. Single imports go before batch imports of the same domain. A timer thread
+ * wakes up domains whose interval has not passed yet. The limits are shared by all
+ * import jobs, single and batched.</p>
+ */
+@Component
+public class ImportDispatcher {
+
+    private static final long EXECUTOR_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final TaskExecutor importExecutor;
+    private final int maxConcurrentPerDomain;
+    private final long minIntervalNanos;
+    private final int maxQueued;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "import-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this.
+    private final Map<String, DomainQueue> queuesByDomain = new HashMap<>();
+    private int queued;
+
+    public ImportDispatcher(@Qualifier("importExecutor") TaskExecutor importExecutor,
+                            @Value("${recipe.import.per-domain.max-concurrent:2}") int maxConcurrentPerDomain,
+                            @Value("${recipe.import.per-domain.min-interval:500ms}") Duration minInterval,
+                            @Value("${recipe.import.max-queued:20000}") int maxQueued) {
+        if (maxConcurrentPerDomain <= 0) {
+            throw new IllegalArgumentException("Per-domain import concurrency must be positive.");
+        }
+        this.importExecutor = Objects.requireNonNull(importExecutor);
+        this.maxConcurrentPerDomain = maxConcurrentPerDomain;
+        this.minIntervalNanos = minInterval.toNanos();
+        this.maxQueued = maxQueued;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Queues a single import ahead of the batch imports of its domain.
+     *
+     * @throws TaskRejectedException when too many imports are waiting
+     */
+    public synchronized void submit(String domain, Runnable task) {
+        if (queued >= maxQueued) {
+            throw new TaskRejectedException("Import queue limit of " + maxQueued + " reached");
+        }
+        DomainQueue queue = queue(domain);
+        queue.single.add(task);
+        queued++;
+        dispatch(queue);
+    }
+
+    /**
+     * Queues all imports of a batch, or none of them when they do not fit.
+     *
+     * @param tasksByDomain imports keyed by the domain they fetch from
+     * @throws TaskRejectedException when the imports do not fit in the queue
+     */
+    public synchronized void submitAll(Map<String, List<Runnable>> tasksByDomain) {
+        int count = tasksByDomain.values().stream().mapToInt(List::size).sum();
+        if (queued + count > maxQueued) {
+            throw new TaskRejectedException("Import queue limit of " + maxQueued + " reached");
+        }
+        tasksByDomain.forEach((domain, tasks) -> {
+            DomainQueue queue = queue(domain);
+            queue.batch.addAll(tasks);
+            queued += tasks.size();
+        });
+        tasksByDomain.keySet().forEach(domain -> dispatch(queuesByDomain.get(domain)));
+    }
+
+    private DomainQueue queue(String domain) {
+        return queuesByDomain.computeIfAbsent(domain, DomainQueue::new);
+    }
+
+    /**
+     * Starts as many waiting imports of the domain as its limits allow, and sets
+     * the timer when the next one has to wait for the interval.
+     */
+    private void dispatch(DomainQueue queue) {
+        while (queue.running < maxConcurrentPerDomain && queue.hasWaiting() && !queue.wakeUpScheduled) {
+            long now = System.nanoTime();
+            if (now - queue.nextStartNanos < 0) {
+                wakeUpLater(queue, queue.nextStartNanos - now);
+                return;
+            }
+
+            Runnable task = queue.poll();
+            try {
+                importExecutor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        finished(queue);
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                // The executor is busy with other work; keep the import and try again shortly.
+                queue.pushBack(task);
+                wakeUpLater(queue, EXECUTOR_RETRY_NANOS);
+                return;
+            }
+            queued--;
+            queue.running++;
+            queue.nextStartNanos = now + minIntervalNanos;
+        }
+        if (queue.running == 0 && !queue.hasWaiting() && !queue.wakeUpScheduled) {
+            // Keep the queue until its interval has passed, so that the next import still waits for it.
+            long remaining = queue.nextStartNanos - System.nanoTime();
+            if (remaining > 0) {
+                wakeUpLater(queue, remaining);
+            } else {
+                queuesByDomain.remove(queue.domain);
+            }
+        }
+    }
+
+    private void wakeUpLater(DomainQueue queue, long delayNanos) {
+        queue.wakeUpScheduled = true;
+        timer.schedule(() -> {
+            synchronized (this) {
+                queue.wakeUpScheduled = false;
+                dispatch(queue);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void finished(DomainQueue queue) {
+        queue.running--;
+        dispatch(queue);
+    }
+
+    private final class DomainQueue {
+        private final String domain;
+        private final Deque<Runnable> single = new ArrayDeque<>();
+        private final Deque<Runnable> batch = new ArrayDeque<>();
+        private int running;
+        private long nextStartNanos = System.nanoTime();
+        private boolean wakeUpScheduled;
+
+        DomainQueue(String domain) {
+            this.domain = domain;
+        }
+
+        boolean hasWaiting() {
+            return !single.isEmpty() || !batch.isEmpty();
+        }
+
+        Runnable poll() {
+            return !single.isEmpty() ? single.poll() : batch.poll();
+        }
+
+        void pushBack(Runnable task) {
+            // A rejected task goes back to the front, where it came from.
+            single.push(task);
+        }
+    }
+}
@@ -1,52 +1,131 @@
 package edu.agh.recipe.importing.service;
 
+import edu.agh.recipe.importing.dto.ImportBatchStatus;
 import edu.agh.recipe.importing.dto.ImportJobStatus;
 import edu.agh.recipe.importing.dto.RecipeImportPreviewDTO;
 import edu.agh.recipe.importing.dto.RecipeImportRequest;
-import edu.agh.recipe.recipes.model.Recipe;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
-import java.util.concurrent.*;
 
 @Service
 public class ImportJobService {
 
+    private static final String REJECTED_MESSAGE = "Too many imports in progress, try again later.";
+
     private final RecipeImportService recipeImportService;
-    private final Map<String, ImportJobStatus> jobs = new ConcurrentHashMap<>();
+    private final ImportDispatcher importDispatcher;
+    private final ImportJobStore importJobStore;
 
-    public ImportJobService(RecipeImportService recipeImportService) {
-        this.recipeImportService = recipeImportService;
+    public ImportJobService(RecipeImportService recipeImportService, ImportDispatcher importDispatcher,
+                            ImportJobStore importJobStore) {
+        this.recipeImportService = Objects.requireNonNull(recipeImportService);
+        this.importDispatcher = Objects.requireNonNull(importDispatcher);
+        this.importJobStore = Objects.requireNonNull(importJobStore);
     }
 
-    @Async
-    public void startImportJobAsync(RecipeImportRequest request, String jobId) {
-        ImportJobStatus jobStatus = jobs.get(jobId);
+    private void runImportJob(RecipeImportRequest request, ImportJobStatus jobStatus) {
+        if (!"IN_PROGRESS".equals(jobStatus.getStatus())) {
+            jobStatus.setStatus("IN_PROGRESS");
+            importJobStore.save(jobStatus);
+        }
         try {
             RecipeImportPreviewDTO recipe = recipeImportService.importRecipe(request.url());
-            jobStatus.setStatus("COMPLETED");
             jobStatus.setResult(recipe);
+            jobStatus.setStatus("COMPLETED");
         } catch (IllegalArgumentException e) {
-            jobStatus.setStatus("FAILED");
             jobStatus.setErrorMessage("Unsupported source URL: " + e.getMessage());
-        } catch (Exception e) {
             jobStatus.setStatus("FAILED");
+        } catch (Exception e) {
             jobStatus.setErrorMessage("Import failed: " + e.getMessage());
+            jobStatus.setStatus("FAILED");
         }
+        importJobStore.save(jobStatus);
     }
 
+    /**
+     * Registers the job and queues it with the dispatcher ahead of the batch imports
+     * of its domain, so the request thread returns right away. When the queue is full
+     * the job is dropped and the client is told to retry later.
+     */
     public String startImportJob(RecipeImportRequest request) {
         String jobId = UUID.randomUUID().toString();
-        ImportJobStatus jobStatus = new ImportJobStatus(jobId, "IN_PROGRESS");
-        jobs.put(jobId, jobStatus);
+        ImportJobStatus jobStatus = new ImportJobStatus(jobId, "QUEUED");
+
+        String domainName;
+        try {
+            domainName = recipeImportService.domainName(request.url());
+        } catch (IllegalArgumentException e) {
+            jobStatus.setErrorMessage("Unsupported source URL: " + e.getMessage());
+            jobStatus.setStatus("FAILED");
+            importJobStore.save(jobStatus);
+            return jobId;
+        }
+        importJobStore.save(jobStatus);
 
-        startImportJobAsync(request, jobId);
+        try {
+            importDispatcher.submit(domainName, () -> runImportJob(request, jobStatus));
+        } catch (TaskRejectedException e) {
+            importJobStore.delete(jobId);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, REJECTED_MESSAGE);
+        }
 
         return jobId;
     }
 
+    /**
+     * Starts an import job for every URL under one batch id. The jobs wait in the
+     * dispatcher's per-domain queues and take an executor thread only while they
+     * run, so many sites are imported at once and a large batch never holds threads
+     * that other imports could use.
+     */
+    public String startBatchImport(List<String> urls) {
+        String batchId = UUID.randomUUID().toString();
+        List<ImportJobStatus> batchJobs = new ArrayList<>(urls.size());
+        Map<String, List<Runnable>> importsByDomain = new LinkedHashMap<>();
+
+        for (String url : urls) {
+            String jobId = UUID.randomUUID().toString();
+            ImportJobStatus jobStatus = new ImportJobStatus(jobId, "QUEUED");
+            jobStatus.setBatchId(batchId);
+            batchJobs.add(jobStatus);
+            try {
+                RecipeImportRequest request = new RecipeImportRequest(url);
+                importsByDomain.computeIfAbsent(recipeImportService.domainName(url), domain -> new ArrayList<>())
+                        .add(() -> runImportJob(request, jobStatus));
+            } catch (IllegalArgumentException e) {
+                jobStatus.setErrorMessage("Unsupported source URL: " + e.getMessage());
+                jobStatus.setStatus("FAILED");
+            }
+        }
+        // Stored before any import starts, so no update of a running import is overwritten.
+        importJobStore.saveAll(batchJobs);
+
+        try {
+            importDispatcher.submitAll(importsByDomain);
+        } catch (TaskRejectedException e) {
+            batchJobs.forEach(jobStatus -> importJobStore.delete(jobStatus.getJobId()));
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, REJECTED_MESSAGE);
+        }
+
+        return batchId;
+    }
+
     public Optional<ImportJobStatus> getJobStatus(String jobId) {
-        return Optional.ofNullable(jobs.get(jobId));
+        return importJobStore.findById(jobId);
+    }
+
+    public Optional<ImportBatchStatus> getBatchStatus(String batchId) {
+        Map<String, Long> countsByStatus = importJobStore.countByBatchId(batchId);
+        return countsByStatus.isEmpty() ? Optional.empty() : Optional.of(ImportBatchStatus.of(batchId, countsByStatus));
+    }
+
+    public Page<ImportJobStatus> getBatchJobs(String batchId, Pageable pageable) {
+        return importJobStore.findByBatchId(batchId, pageable);
     }
 }
@@ -0,0 +1,31 @@
+package edu.agh.recipe.importing.service;
+
+import edu.agh.recipe.importing.dto.ImportJobStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps import jobs for a limited time after their last change, so clients can
+ * poll the result. Jobs are saved again after every status change.
+ */
+public interface ImportJobStore {
+
+    void save(ImportJobStatus jobStatus);
+
+    // Saves jobs that are not stored yet
+    void saveAll(List<ImportJobStatus> jobStatuses);
+
+    Optional<ImportJobStatus> findById(String jobId);
+
+    // Number of jobs of the batch for every job status; empty for an unknown batch
+    Map<String, Long> countByBatchId(String batchId);
+
+    // Jobs of the batch ordered by job id
+    Page<ImportJobStatus> findByBatchId(String batchId, Pageable pageable);
+
+    void delete(String jobId);
+}
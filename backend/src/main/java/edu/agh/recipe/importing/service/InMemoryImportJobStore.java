@@ -0,0 +1,178 @@
+package edu.agh.recipe.importing.service;
+
+import edu.agh.recipe.importing.dto.ImportJobStatus;
+import edu.agh.recipe.importing.dto.RecipeImportPreviewDTO;
+import edu.agh.recipe.recipes.dto.RecipeIngredientDTO;
+import edu.agh.recipe.recipes.dto.RecipeStepDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Keeps the jobs on the heap of this instance. Finished jobs expire after the TTL
+ * and, when the estimated size of all jobs goes over the limit, the least recently
+ * updated finished jobs are dropped first. Queued and running jobs are never dropped,
+ * their number is bounded by the import queue. Jobs are lost on restart.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe.import.jobs.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryImportJobStore implements ImportJobStore {
+
+    private static final Set<String> FINISHED_STATUSES = Set.of("COMPLETED", "FAILED");
+    // Rough heap cost of a job without its strings: the status object, the map entries and the batch index entry.
+    private static final long JOB_OVERHEAD_BYTES = 320;
+    private static final long ITEM_OVERHEAD_BYTES = 64;
+
+    private final Duration ttl;
+    private final long maxBytes;
+    // Finished jobs ordered by the last save, which is also the order of expiry.
+    private final LinkedHashMap<String, StoredJob> finishedJobsById = new LinkedHashMap<>();
+    private final Map<String, StoredJob> activeJobsById = new HashMap<>();
+    private final Map<String, NavigableSet<String>> jobIdsByBatchId = new HashMap<>();
+    private long usedBytes;
+
+    public InMemoryImportJobStore(@Value("${recipe.import.jobs.ttl:24h}") Duration ttl,
+                                  @Value("${recipe.import.jobs.max-bytes:67108864}") long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Import job store size must be positive.");
+        }
+        this.ttl = Objects.requireNonNull(ttl);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public synchronized void save(ImportJobStatus jobStatus) {
+        Instant now = Instant.now();
+        remove(jobStatus.getJobId());
+
+        StoredJob job = new StoredJob(jobStatus, now.plus(ttl), estimateBytes(jobStatus));
+        if (FINISHED_STATUSES.contains(jobStatus.getStatus())) {
+            finishedJobsById.put(jobStatus.getJobId(), job);
+        } else {
+            activeJobsById.put(jobStatus.getJobId(), job);
+        }
+        usedBytes += job.bytes();
+        if (jobStatus.getBatchId() != null) {
+            jobIdsByBatchId.computeIfAbsent(jobStatus.getBatchId(), batchId -> new TreeSet<>()).add(jobStatus.getJobId());
+        }
+        evictExpired(now);
+
+        Iterator<StoredJob> eldest = finishedJobsById.values().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            StoredJob evicted = eldest.next();
+            eldest.remove();
+            forget(evicted);
+        }
+    }
+
+    @Override
+    public synchronized void saveAll(List<ImportJobStatus> jobStatuses) {
+        jobStatuses.forEach(this::save);
+    }
+
+    @Override
+    public synchronized Optional<ImportJobStatus> findById(String jobId) {
+        evictExpired(Instant.now());
+        return Optional.ofNullable(find(jobId)).map(StoredJob::jobStatus);
+    }
+
+    @Override
+    public synchronized Map<String, Long> countByBatchId(String batchId) {
+        evictExpired(Instant.now());
+        Map<String, Long> countsByStatus = new HashMap<>();
+        for (String jobId : jobIdsByBatchId.getOrDefault(batchId, Collections.emptyNavigableSet())) {
+            countsByStatus.merge(find(jobId).jobStatus().getStatus(), 1L, Long::sum);
+        }
+        return countsByStatus;
+    }
+
+    @Override
+    public synchronized Page<ImportJobStatus> findByBatchId(String batchId, Pageable pageable) {
+        evictExpired(Instant.now());
+        NavigableSet<String> jobIds = jobIdsByBatchId.getOrDefault(batchId, Collections.emptyNavigableSet());
+        List<ImportJobStatus> jobs = jobIds.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .map(jobId -> find(jobId).jobStatus())
+                .toList();
+        return new PageImpl<>(jobs, pageable, jobIds.size());
+    }
+
+    @Override
+    public synchronized void delete(String jobId) {
+        remove(jobId);
+    }
+
+    private StoredJob find(String jobId) {
+        StoredJob job = finishedJobsById.get(jobId);
+        return job != null ? job : activeJobsById.get(jobId);
+    }
+
+    private void remove(String jobId) {
+        StoredJob job = finishedJobsById.remove(jobId);
+        if (job == null) {
+            job = activeJobsById.remove(jobId);
+        }
+        if (job != null) {
+            forget(job);
+        }
+    }
+
+    /**
+     * Drops the size and the batch index entry of a job already removed from its map.
+     */
+    private void forget(StoredJob job) {
+        usedBytes -= job.bytes();
+        String batchId = job.jobStatus().getBatchId();
+        if (batchId != null) {
+            NavigableSet<String> jobIds = jobIdsByBatchId.get(batchId);
+            if (jobIds != null && jobIds.remove(job.jobStatus().getJobId()) && jobIds.isEmpty()) {
+                jobIdsByBatchId.remove(batchId);
+            }
+        }
+    }
+
+    private void evictExpired(Instant now) {
+        Iterator<StoredJob> eldest = finishedJobsById.values().iterator();
+        while (eldest.hasNext()) {
+            StoredJob job = eldest.next();
+            if (job.expiresAt().isAfter(now)) {
+                return;
+            }
+            eldest.remove();
+            forget(job);
+        }
+    }
+
+    /**
+     * Estimates the heap used by the job, counting two bytes per character of its texts.
+     */
+    private static long estimateBytes(ImportJobStatus jobStatus) {
+        long bytes = JOB_OVERHEAD_BYTES + chars(jobStatus.getJobId()) + chars(jobStatus.getBatchId())
+                + chars(jobStatus.getErrorMessage());
+        RecipeImportPreviewDTO result = jobStatus.getResult();
+        if (result != null) {
+            bytes += chars(result.name()) + chars(result.description());
+            for (RecipeIngredientDTO ingredient : Objects.requireNonNullElse(result.ingredients(), List.<RecipeIngredientDTO>of())) {
+                bytes += ITEM_OVERHEAD_BYTES + chars(ingredient.ingredientName());
+            }
+            for (RecipeStepDTO step : Objects.requireNonNullElse(result.steps(), List.<RecipeStepDTO>of())) {
+                bytes += ITEM_OVERHEAD_BYTES + chars(step.title()) + chars(step.text());
+            }
+        }
+        return bytes;
+    }
+
+    private static long chars(String text) {
+        return text != null ? 2L * text.length() : 0;
+    }
+
+    private record StoredJob(ImportJobStatus jobStatus, Instant expiresAt, long bytes) {}
+}
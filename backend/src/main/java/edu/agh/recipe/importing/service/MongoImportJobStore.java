@@ -0,0 +1,89 @@
+package edu.agh.recipe.importing.service;
+
+import edu.agh.recipe.importing.dto.ImportJobStatus;
+import edu.agh.recipe.importing.model.ImportJob;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Keeps the jobs in the {@code importJobs} collection, so they survive restarts and
+ * every instance behind a load balancer sees them. A TTL index removes each job once
+ * its expiry time has passed; MongoDB checks it about once a minute.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe.import.jobs.store", havingValue = "mongo")
+public class MongoImportJobStore implements ImportJobStore {
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration ttl;
+
+    public MongoImportJobStore(MongoTemplate mongoTemplate, @Value("${recipe.import.jobs.ttl:24h}") Duration ttl) {
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+        this.ttl = Objects.requireNonNull(ttl);
+    }
+
+    @Override
+    public void save(ImportJobStatus jobStatus) {
+        mongoTemplate.save(ImportJob.fromStatus(jobStatus, Instant.now().plus(ttl)));
+    }
+
+    @Override
+    public void saveAll(List<ImportJobStatus> jobStatuses) {
+        Instant expiresAt = Instant.now().plus(ttl);
+        mongoTemplate.insertAll(jobStatuses.stream()
+                .map(jobStatus -> ImportJob.fromStatus(jobStatus, expiresAt))
+                .toList());
+    }
+
+    @Override
+    public Optional<ImportJobStatus> findById(String jobId) {
+        // Expired jobs are only removed on the next TTL pass, so they are filtered out here.
+        Query query = Query.query(Criteria.where("_id").is(jobId).and("expiresAt").gt(Instant.now()));
+        return Optional.ofNullable(mongoTemplate.findOne(query, ImportJob.class)).map(ImportJob::toStatus);
+    }
+
+    @Override
+    public Map<String, Long> countByBatchId(String batchId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(batchCriteria(batchId)),
+                Aggregation.group("status").count().as("count")
+        );
+        Map<String, Long> countsByStatus = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, ImportJob.class, Document.class).forEach(group ->
+                countsByStatus.put(group.getString("_id"), ((Number) group.get("count")).longValue()));
+        return countsByStatus;
+    }
+
+    @Override
+    public Page<ImportJobStatus> findByBatchId(String batchId, Pageable pageable) {
+        Query query = Query.query(batchCriteria(batchId));
+        long total = mongoTemplate.count(query, ImportJob.class);
+        List<ImportJobStatus> jobs = mongoTemplate.find(query.with(pageable).with(Sort.by("_id")), ImportJob.class).stream()
+                .map(ImportJob::toStatus)
+                .toList();
+        return new PageImpl<>(jobs, pageable, total);
+    }
+
+    private static Criteria batchCriteria(String batchId) {
+        return Criteria.where("batchId").is(batchId).and("expiresAt").gt(Instant.now());
+    }
+
+    @Override
+    public void delete(String jobId) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(jobId)), ImportJob.class);
+    }
+}
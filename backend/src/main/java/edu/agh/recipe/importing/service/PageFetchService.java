@@ -0,0 +1,20 @@
+package edu.agh.recipe.importing.service;
+
+import edu.agh.recipe.importing.model.FetchedPage;
+
+import java.io.IOException;
+
+/**
+ * Downloads the HTML pages recipes are imported from.
+ *
+ * <p>Implementations must be safe for use in multi-threaded environments.</p>
+ */
+public interface PageFetchService {
+
+    /**
+     * Returns the HTML of the page at the URL.
+     *
+     * @throws IOException if the page could not be downloaded
+     */
+    FetchedPage fetch(String url) throws IOException;
+}
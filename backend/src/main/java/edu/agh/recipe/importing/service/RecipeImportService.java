@@ -4,15 +4,11 @@ import edu.agh.recipe.importing.dictionary.QueryDictionaryService;
 import edu.agh.recipe.importing.dto.RecipeImportPreviewDTO;
 import edu.agh.recipe.importing.exception.RecipeImportException;
 import edu.agh.recipe.importing.model.RecipeImportFieldQuery;
+import edu.agh.recipe.importing.model.RecipePageFields;
 import edu.agh.recipe.recipes.dto.RecipeIngredientDTO;
 import edu.agh.recipe.recipes.dto.RecipeStepDTO;
 import edu.agh.recipe.recipes.repository.RecipeRepository;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -29,34 +25,49 @@ public class RecipeImportService {
     private final RecipeRepository recipeRepository;
     private final IngredientParserService ingredientParser;
     private final QueryDictionaryService dictionaryService;
+    private final PageFetchService pageFetchService;
+    private final RecipePageExtractor recipePageExtractor;
 
     public RecipeImportService(
             RecipeRepository recipeRepository,
             IngredientParserService ingredientParser,
-            QueryDictionaryService dictionaryService) {
+            QueryDictionaryService dictionaryService,
+            PageFetchService pageFetchService,
+            RecipePageExtractor recipePageExtractor) {
         this.recipeRepository = Objects.requireNonNull(recipeRepository);
         this.ingredientParser = ingredientParser;
         this.dictionaryService = dictionaryService;
+        this.pageFetchService = Objects.requireNonNull(pageFetchService);
+        this.recipePageExtractor = Objects.requireNonNull(recipePageExtractor);
+    }
+
+    /**
+     * Returns the host of the URL without the {@code www.} prefix, the key of the site in the query dictionary.
+     */
+    public String domainName(String url) {
+        try {
+            String host = new URI(url).getHost();
+            if (host == null) {
+                throw new IllegalArgumentException("Missing host in " + url);
+            }
+            return host.startsWith("www.") ? host.substring(4) : host;
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Incorrect URL Syntax: " + e.getMessage());
+        }
     }
 
     public RecipeImportPreviewDTO importRecipe(String url) {
         try {
-            URI uri = new URI(url);
-            String host = uri.getHost();
-            String domainName = host.startsWith("www.") ? host.substring(4) : host;
+            String domainName = domainName(url);
             Optional<RecipeImportFieldQuery> importFields = dictionaryService.resolveWebsite(domainName);
 
             if (importFields.isEmpty()) {
                 throw new RecipeImportException("The domain \"" + domainName + "\" is not supported.");
             }
 
-            Document doc = Jsoup.connect(url).get();
-
-            String title = doc.select(importFields.get().title()).text();
-            String description = doc.select(importFields.get().description()).text();
+            RecipePageFields fields = recipePageExtractor.extract(pageFetchService.fetch(url), importFields.get());
 
-            List<RecipeIngredientDTO> ingredients = doc.select(importFields.get().ingredients()).stream()
-                    .map(Element::text)
+            List<RecipeIngredientDTO> ingredients = fields.ingredients().stream()
                     .map(text -> {
                         Optional<RecipeIngredientDTO> parsed = ingredientParser.parse(text);
                         if (parsed.isEmpty()) {
@@ -67,20 +78,14 @@ public class RecipeImportService {
                     .flatMap(Optional::stream) // Skips cases where parse(...) returns Optional.empty().
                     .toList();
 
-            Elements stepElements = doc.select(importFields.get().steps());
-
             List<RecipeStepDTO> steps = new ArrayList<>();
-            for (int i = 0; i < stepElements.size(); i++) {
-                Element step = stepElements.get(i);
-                String text = step.text();
-                steps.add(new RecipeStepDTO("Step " + (i + 1), text));
+            for (int i = 0; i < fields.steps().size(); i++) {
+                steps.add(new RecipeStepDTO("Step " + (i + 1), fields.steps().get(i)));
             }
 
-            return new RecipeImportPreviewDTO(title, description, ingredients, steps, Set.of());
+            return new RecipeImportPreviewDTO(fields.title(), fields.description(), ingredients, steps, Set.of());
 
 
-        } catch (URISyntaxException e) {
-            throw new IllegalArgumentException("Incorrect URL Syntax: " + e.getMessage());
         } catch (IOException e) {
             throw new RecipeImportException("Failed to import recipe from " + url, e);
         }
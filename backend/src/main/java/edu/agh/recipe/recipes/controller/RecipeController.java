@@ -2,8 +2,16 @@ package edu.agh.recipe.recipes.controller;
 
 import edu.agh.recipe.recipes.dto.CreateRecipeDTO;
 import edu.agh.recipe.recipes.dto.RecipeDTO;
+import edu.agh.recipe.recipes.dto.RecipeFilter;
+import edu.agh.recipe.recipes.dto.RecipePageSchemas.RecipeCursorPage;
+import edu.agh.recipe.recipes.dto.RecipePageSchemas.RecipePage;
+import edu.agh.recipe.recipes.dto.RecipePageSchemas.RecipeSummaryCursorPage;
+import edu.agh.recipe.recipes.dto.RecipePageSchemas.RecipeSummaryPage;
+import edu.agh.recipe.recipes.dto.RecipeScrollRequest;
 import edu.agh.recipe.recipes.dto.UpdateRecipeDTO;
 import edu.agh.recipe.recipes.service.RecipeService;
+import edu.agh.recipe.search.dto.RecipeSuggestionDTO;
+import edu.agh.recipe.search.service.RecipeSuggestionService;
 import edu.agh.recipe.tags.dto.TagDTO;
 import edu.agh.recipe.tags.dto.TagReferenceDTO;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,7 +23,6 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -33,10 +40,14 @@ import java.util.Set;
 @Tag(name = "Recipe", description = "Recipe management APIs")
 public class RecipeController {
 
+    private static final String SUMMARY_VIEW = "summary";
+
     private final RecipeService recipeService;
+    private final RecipeSuggestionService recipeSuggestionService;
 
-    public RecipeController(RecipeService recipeService) {
+    public RecipeController(RecipeService recipeService, RecipeSuggestionService recipeSuggestionService) {
         this.recipeService = Objects.requireNonNull(recipeService);
+        this.recipeSuggestionService = Objects.requireNonNull(recipeSuggestionService);
     }
 
     @Operation(
@@ -46,10 +57,13 @@ public class RecipeController {
     @ApiResponse(
             responseCode = "200",
             description = "Successfully retrieved recipes",
-            content = @Content(schema = @Schema(implementation = Page.class))
+            content = @Content(schema = @Schema(oneOf = {
+                    RecipePage.class, RecipeCursorPage.class,
+                    RecipeSummaryPage.class, RecipeSummaryCursorPage.class
+            }))
     )
     @GetMapping
-    public ResponseEntity<Page<RecipeDTO>> getAllRecipes(
+    public ResponseEntity<?> getAllRecipes(
             @Parameter(description = "Page number (zero-based)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Number of items per page")
@@ -57,8 +71,22 @@ public class RecipeController {
             @Parameter(description = "Sort field")
             @RequestParam(defaultValue = "name") String sort,
             @Parameter(description = "Sort direction (asc/desc)")
-            @RequestParam(defaultValue = "asc") String direction
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Continuation token for cursor pagination; pass an empty value to get the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Whether to count all matching recipes in cursor pagination mode")
+            @RequestParam(defaultValue = "false") boolean count,
+            @Parameter(description = "Response view: full recipes or summaries (full/summary)")
+            @RequestParam(defaultValue = "full") String view
     ) {
+        if (SUMMARY_VIEW.equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(summaries(RecipeFilter.none(), page, size, sort, direction, cursor, count));
+        }
+        if (cursor != null) {
+            RecipeScrollRequest request = new RecipeScrollRequest(cursor, size, sort, direction, count);
+            return ResponseEntity.ok(recipeService.scrollAllRecipes(request));
+        }
+
         Sort.Direction sortDirection = Sort.Direction.fromString(direction);
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
         return ResponseEntity.ok(recipeService.getAllRecipes(pageable));
@@ -85,10 +113,13 @@ public class RecipeController {
     @ApiResponse(
             responseCode = "200",
             description = "Successfully retrieved filtered recipes",
-            content = @Content(schema = @Schema(implementation = Page.class))
+            content = @Content(schema = @Schema(oneOf = {
+                    RecipePage.class, RecipeCursorPage.class,
+                    RecipeSummaryPage.class, RecipeSummaryCursorPage.class
+            }))
     )
     @GetMapping("/filter/any")
-    public ResponseEntity<Page<RecipeDTO>> getRecipesByAnyIngredient(
+    public ResponseEntity<?> getRecipesByAnyIngredient(
             @Parameter(description = "List of ingredient names to match any", required = true)
             @RequestParam List<String> ingredients,
             @Parameter(description = "Page number (zero-based)")
@@ -98,8 +129,22 @@ public class RecipeController {
             @Parameter(description = "Sort field")
             @RequestParam(defaultValue = "name") String sort,
             @Parameter(description = "Sort direction (asc/desc)")
-            @RequestParam(defaultValue = "asc") String direction
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Continuation token for cursor pagination; pass an empty value to get the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Whether to count all matching recipes in cursor pagination mode")
+            @RequestParam(defaultValue = "false") boolean count,
+            @Parameter(description = "Response view: full recipes or summaries (full/summary)")
+            @RequestParam(defaultValue = "full") String view
     ) {
+        if (SUMMARY_VIEW.equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(summaries(RecipeFilter.byAnyIngredients(ingredients), page, size, sort, direction, cursor, count));
+        }
+        if (cursor != null) {
+            RecipeScrollRequest request = new RecipeScrollRequest(cursor, size, sort, direction, count);
+            return ResponseEntity.ok(recipeService.scrollRecipesContainingAnyIngredients(ingredients, request));
+        }
+
         Sort.Direction sortDirection = Sort.Direction.fromString(direction);
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
         return ResponseEntity.ok(recipeService.findRecipesContainingAnyIngredients(ingredients, pageable));
@@ -112,10 +157,13 @@ public class RecipeController {
     @ApiResponse(
             responseCode = "200",
             description = "Successfully retrieved filtered recipes",
-            content = @Content(schema = @Schema(implementation = Page.class))
+            content = @Content(schema = @Schema(oneOf = {
+                    RecipePage.class, RecipeCursorPage.class,
+                    RecipeSummaryPage.class, RecipeSummaryCursorPage.class
+            }))
     )
     @GetMapping("/filter/all")
-    public ResponseEntity<Page<RecipeDTO>> getRecipesByAllIngredients(
+    public ResponseEntity<?> getRecipesByAllIngredients(
             @Parameter(description = "List of ingredient names to match all", required = true)
             @RequestParam List<String> ingredients,
             @Parameter(description = "Page number (zero-based)")
@@ -125,8 +173,22 @@ public class RecipeController {
             @Parameter(description = "Sort field")
             @RequestParam(defaultValue = "name") String sort,
             @Parameter(description = "Sort direction (asc/desc)")
-            @RequestParam(defaultValue = "asc") String direction
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Continuation token for cursor pagination; pass an empty value to get the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Whether to count all matching recipes in cursor pagination mode")
+            @RequestParam(defaultValue = "false") boolean count,
+            @Parameter(description = "Response view: full recipes or summaries (full/summary)")
+            @RequestParam(defaultValue = "full") String view
     ) {
+        if (SUMMARY_VIEW.equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(summaries(RecipeFilter.byAllIngredients(ingredients), page, size, sort, direction, cursor, count));
+        }
+        if (cursor != null) {
+            RecipeScrollRequest request = new RecipeScrollRequest(cursor, size, sort, direction, count);
+            return ResponseEntity.ok(recipeService.scrollRecipesContainingAllIngredients(ingredients, request));
+        }
+
         Sort.Direction sortDirection = Sort.Direction.fromString(direction);
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
         return ResponseEntity.ok(recipeService.findRecipesContainingAllIngredients(ingredients, pageable));
@@ -134,15 +196,16 @@ public class RecipeController {
 
     @Operation(
             summary = "Get recipe name suggestions.",
-            description = "Returns a limited list of recipes whose names start with the query, for search suggestions."
+            description = "Returns the ids and names of a limited number of recipes whose names start with the query, " +
+                    "for search suggestions. Case and Polish diacritics are ignored."
     )
     @ApiResponse(
             responseCode = "200",
             description = "Successfully retrieved suggestions",
-            content = @Content(schema = @Schema(implementation = Page.class))
+            content = @Content(schema = @Schema(implementation = List.class))
     )
     @GetMapping("/suggestions")
-    public ResponseEntity<Page<RecipeDTO>> getRecipeSuggestions(
+    public ResponseEntity<List<RecipeSuggestionDTO>> getRecipeSuggestions(
             @Parameter(description = "Partial recipe name to search for", required = true)
             @RequestParam String query,
             @Parameter(description = "Maximum number of suggestions to return")
@@ -150,9 +213,7 @@ public class RecipeController {
     ) {
         // Enforce a limit between 1 and 20.
         int effectiveLimit = Math.max(1, Math.min(limit, 20));
-        Pageable pageable = PageRequest.of(0, effectiveLimit, Sort.by(Sort.Direction.ASC, "name"));
-        Page<RecipeDTO> suggestions = recipeService.suggestRecipesByName(query, pageable);
-        return ResponseEntity.ok(suggestions);
+        return ResponseEntity.ok(recipeSuggestionService.suggest(query, effectiveLimit));
     }
 
     @Operation(
@@ -239,17 +300,34 @@ public class RecipeController {
     @ApiResponse(
             responseCode = "200",
             description = "Successfully retrieved filtered recipes",
-            content = @Content(schema = @Schema(implementation = Page.class))
+            content = @Content(schema = @Schema(oneOf = {
+                    RecipePage.class, RecipeCursorPage.class,
+                    RecipeSummaryPage.class, RecipeSummaryCursorPage.class
+            }))
     )
     @GetMapping("/filter/tag/by-id")
-    public ResponseEntity<Page<RecipeDTO>> getRecipesByTagId(
+    public ResponseEntity<?> getRecipesByTagId(
             @Parameter(description = "Tag identifier")
             @RequestParam String tagId,
             @Parameter(description = "Page number (zero-based)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Number of items per page")
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Continuation token for cursor pagination; pass an empty value to get the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Whether to count all matching recipes in cursor pagination mode")
+            @RequestParam(defaultValue = "false") boolean count,
+            @Parameter(description = "Response view: full recipes or summaries (full/summary)")
+            @RequestParam(defaultValue = "full") String view
     ) {
+        if (SUMMARY_VIEW.equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(summaries(RecipeFilter.byTagId(tagId), page, size, null, null, cursor, count));
+        }
+        if (cursor != null) {
+            RecipeScrollRequest request = new RecipeScrollRequest(cursor, size, null, null, count);
+            return ResponseEntity.ok(recipeService.scrollRecipesByTag(tagId, request));
+        }
+
         Pageable pageable = PageRequest.of(page, size);
         return ResponseEntity.ok(recipeService.findRecipesByTag(tagId, pageable));
     }
@@ -258,15 +336,37 @@ public class RecipeController {
             summary = "Filter recipes by tag name.",
             description = "Returns recipes that have a tag with the specified name."
     )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Successfully retrieved filtered recipes",
+            content = @Content(schema = @Schema(oneOf = {
+                    RecipePage.class, RecipeCursorPage.class,
+                    RecipeSummaryPage.class, RecipeSummaryCursorPage.class
+            }))
+    )
     @GetMapping("/filter/tag/by-name")
-    public ResponseEntity<Page<RecipeDTO>> getRecipesByTagName(
+    public ResponseEntity<?> getRecipesByTagName(
             @Parameter(description = "Tag name")
             @RequestParam String tagName,
             @Parameter(description = "Page number (zero-based)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Number of items per page")
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Continuation token for cursor pagination; pass an empty value to get the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Whether to count all matching recipes in cursor pagination mode")
+            @RequestParam(defaultValue = "false") boolean count,
+            @Parameter(description = "Response view: full recipes or summaries (full/summary)")
+            @RequestParam(defaultValue = "full") String view
     ) {
+        if (SUMMARY_VIEW.equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(summaries(RecipeFilter.byTagName(tagName), page, size, null, null, cursor, count));
+        }
+        if (cursor != null) {
+            RecipeScrollRequest request = new RecipeScrollRequest(cursor, size, null, null, count);
+            return ResponseEntity.ok(recipeService.scrollRecipesByTagName(tagName, request));
+        }
+
         Pageable pageable = PageRequest.of(page, size);
         return ResponseEntity.ok(recipeService.findRecipesByTagName(tagName, pageable));
     }
@@ -278,17 +378,34 @@ public class RecipeController {
     @ApiResponse(
             responseCode = "200",
             description = "Successfully retrieved filtered recipes",
-            content = @Content(schema = @Schema(implementation = Page.class))
+            content = @Content(schema = @Schema(oneOf = {
+                    RecipePage.class, RecipeCursorPage.class,
+                    RecipeSummaryPage.class, RecipeSummaryCursorPage.class
+            }))
     )
     @GetMapping("/filter/tags/any")
-    public ResponseEntity<Page<RecipeDTO>> getRecipesByAnyTagIds(
+    public ResponseEntity<?> getRecipesByAnyTagIds(
             @Parameter(description = "Tag IDs")
             @RequestParam List<String> tagIds,
             @Parameter(description = "Page number (zero-based)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Number of items per page")
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Continuation token for cursor pagination; pass an empty value to get the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Whether to count all matching recipes in cursor pagination mode")
+            @RequestParam(defaultValue = "false") boolean count,
+            @Parameter(description = "Response view: full recipes or summaries (full/summary)")
+            @RequestParam(defaultValue = "full") String view
     ) {
+        if (SUMMARY_VIEW.equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(summaries(RecipeFilter.byAnyTags(tagIds), page, size, null, null, cursor, count));
+        }
+        if (cursor != null) {
+            RecipeScrollRequest request = new RecipeScrollRequest(cursor, size, null, null, count);
+            return ResponseEntity.ok(recipeService.scrollRecipesByAnyTags(tagIds, request));
+        }
+
         Pageable pageable = PageRequest.of(page, size);
         return ResponseEntity.ok(recipeService.findRecipesByAnyTags(tagIds, pageable));
     }
@@ -300,17 +417,34 @@ public class RecipeController {
     @ApiResponse(
             responseCode = "200",
             description = "Successfully retrieved filtered recipes",
-            content = @Content(schema = @Schema(implementation = Page.class))
+            content = @Content(schema = @Schema(oneOf = {
+                    RecipePage.class, RecipeCursorPage.class,
+                    RecipeSummaryPage.class, RecipeSummaryCursorPage.class
+            }))
     )
     @GetMapping("/filter/tags/all")
-    public ResponseEntity<Page<RecipeDTO>> getRecipesByAllTagIds(
+    public ResponseEntity<?> getRecipesByAllTagIds(
             @Parameter(description = "Tag IDs")
             @RequestParam List<String> tagIds,
             @Parameter(description = "Page number (zero-based)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Number of items per page")
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Continuation token for cursor pagination; pass an empty value to get the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Whether to count all matching recipes in cursor pagination mode")
+            @RequestParam(defaultValue = "false") boolean count,
+            @Parameter(description = "Response view: full recipes or summaries (full/summary)")
+            @RequestParam(defaultValue = "full") String view
     ) {
+        if (SUMMARY_VIEW.equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(summaries(RecipeFilter.byAllTags(tagIds), page, size, null, null, cursor, count));
+        }
+        if (cursor != null) {
+            RecipeScrollRequest request = new RecipeScrollRequest(cursor, size, null, null, count);
+            return ResponseEntity.ok(recipeService.scrollRecipesByAllTags(tagIds, request));
+        }
+
         Pageable pageable = PageRequest.of(page, size);
         return ResponseEntity.ok(recipeService.findRecipesByAllTags(tagIds, pageable));
     }
@@ -368,4 +502,16 @@ public class RecipeController {
     ) {
         return ResponseEntity.ok(recipeService.suggestTagsForRecipe(id, limit));
     }
+
+    /**
+     * Lists recipe summaries in cursor mode when a cursor is passed and in page mode otherwise.
+     */
+    private Object summaries(RecipeFilter filter, int page, int size, String sort, String direction,
+                             String cursor, boolean count) {
+        if (cursor != null) {
+            RecipeScrollRequest request = new RecipeScrollRequest(cursor, size, sort, direction, count);
+            return recipeService.scrollRecipeSummaries(filter, request);
+        }
+        return recipeService.findRecipeSummaries(filter, sort, direction, PageRequest.of(page, size));
+    }
 }
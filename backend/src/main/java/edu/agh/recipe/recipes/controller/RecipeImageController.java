@@ -10,10 +10,13 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Objects;
 
@@ -57,6 +60,68 @@ public class RecipeImageController {
         return ResponseEntity.ok(recipeService.uploadImageForRecipe(id, description, image));
     }
 
+    @Operation(
+            summary = "Upload recipe images.",
+            description = "Uploads several images for an existing recipe with ID in one request. The files are " +
+                    "stored in parallel and either all of them are added to the recipe or none. The i-th " +
+                    "description belongs to the i-th image. If the recipe has no images, the first one becomes primary."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Images uploaded successfully",
+                    content = @Content(schema = @Schema(implementation = RecipeDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Recipe not found", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid images", content = @Content)
+    })
+    @PatchMapping(value = "/{id}/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<RecipeDTO> uploadRecipeImages(
+            @Parameter(description = "Recipe identifier", required = true, in = ParameterIn.PATH)
+            @PathVariable String id,
+            @Parameter(description = "Image descriptions, in the order of the images")
+            @RequestParam(value = "descriptions", required = false) List<String> descriptions,
+            @RequestParam("images") List<MultipartFile> images
+    ) {
+        return ResponseEntity.ok(recipeService.uploadImagesForRecipe(id, descriptions, images));
+    }
+
+    @Operation(
+            summary = "Upload recipe image as a stream.",
+            description = "Uploads an image for an existing recipe with ID, sent as the raw request body. " +
+                    "The image is written to storage while it is received, so it is never held in memory " +
+                    "as a whole. Its type and size are checked as it arrives.",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "JPEG, PNG, GIF or WebP image bytes",
+                    required = true,
+                    content = @Content(
+                            mediaType = "image/*",
+                            schema = @Schema(type = "string", format = "binary")
+                    )
+            )
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Image uploaded successfully",
+                    content = @Content(schema = @Schema(implementation = RecipeDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Recipe not found", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Content doesn't match the image type", content = @Content),
+            @ApiResponse(responseCode = "413", description = "Image too large", content = @Content),
+            @ApiResponse(responseCode = "415", description = "Unsupported image type", content = @Content)
+    })
+    @PostMapping(value = "/{id}/image/stream", consumes = {
+            MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp"
+    })
+    public ResponseEntity<RecipeDTO> streamRecipeImage(
+            @Parameter(description = "Recipe identifier", required = true, in = ParameterIn.PATH)
+            @PathVariable String id,
+            @Parameter(description = "Image description")
+            @RequestParam("description") String description,
+            @Parameter(description = "Original file name")
+            @RequestParam(required = false) String filename,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream image
+    ) {
+        return ResponseEntity.ok(recipeService.uploadImageForRecipe(
+                id, description, filename, contentType.getType() + "/" + contentType.getSubtype(), image));
+    }
+
     @Operation(
             summary = "Remove image from recipe.",
             description = "Removes specified image from a recipe."
@@ -1,8 +1,18 @@
 package edu.agh.recipe.recipes.controller;
 
 import edu.agh.recipe.recipes.dto.RecipeDTO;
+import edu.agh.recipe.recipes.dto.RecipeFilter;
+import edu.agh.recipe.recipes.dto.RecipePageSchemas.RecipeCursorPage;
+import edu.agh.recipe.recipes.dto.RecipePageSchemas.RecipePage;
+import edu.agh.recipe.recipes.dto.RecipePageSchemas.RecipeSummaryCursorPage;
+import edu.agh.recipe.recipes.dto.RecipePageSchemas.RecipeSummaryPage;
+import edu.agh.recipe.recipes.dto.RecipeScrollRequest;
 import edu.agh.recipe.recipes.service.RecipeService;
+import edu.agh.recipe.search.dto.IngredientMatchDTO;
+import edu.agh.recipe.search.service.IngredientIndexService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.data.domain.Page;
@@ -23,28 +33,55 @@ import java.util.Objects;
 public class RecipeSearchController {
 
     private final RecipeService recipeService;
+    private final IngredientIndexService ingredientIndexService;
 
-    public RecipeSearchController(RecipeService recipeService) {
+    public RecipeSearchController(RecipeService recipeService, IngredientIndexService ingredientIndexService) {
         this.recipeService = Objects.requireNonNull(recipeService);
+        this.ingredientIndexService = Objects.requireNonNull(ingredientIndexService);
     }
 
     @Operation(
         summary = "Advanced recipe search",
-        description = "Search for recipes with combined filters for name, ingredients, and tags"
+        description = "Search for recipes with combined filters for name, ingredients, and tags. " +
+                "The name is matched case- and accent-insensitively; sort_field=relevance orders by name match quality."
     )
     @ApiResponse(
         responseCode = "200",
-        description = "Successfully retrieved filtered recipes"
+        description = "Successfully retrieved filtered recipes",
+        content = @Content(schema = @Schema(oneOf = {
+                RecipePage.class, RecipeCursorPage.class,
+                RecipeSummaryPage.class, RecipeSummaryCursorPage.class
+        }))
     )
     @GetMapping("/search/advanced")
-    public ResponseEntity<Page<RecipeDTO>> advancedSearch(
+    public ResponseEntity<?> advancedSearch(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) List<String> ingredients,
             @RequestParam(required = false) List<String> tagsID,
             @RequestParam(required = false, defaultValue = "name") String sort_field,
             @RequestParam(required = false, defaultValue = "asc") String direction,
             @RequestParam(required = false, defaultValue = "0") int page_number,
-            @RequestParam(required = false, defaultValue = "10") int size) {
+            @RequestParam(required = false, defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "false") boolean count,
+            @RequestParam(required = false, defaultValue = "full") String view) {
+
+        // The summary view leaves out ingredients and steps.
+        if ("summary".equalsIgnoreCase(view)) {
+            RecipeFilter filter = RecipeFilter.advanced(name, ingredients, tagsID);
+            if (cursor != null) {
+                RecipeScrollRequest request = new RecipeScrollRequest(cursor, size, sort_field, direction, count);
+                return ResponseEntity.ok(recipeService.scrollRecipeSummaries(filter, request));
+            }
+            return ResponseEntity.ok(recipeService.findRecipeSummaries(
+                    filter, sort_field, direction, PageRequest.of(page_number, size)));
+        }
+
+        // Cursor pagination is used when a cursor is passed, even an empty one.
+        if (cursor != null) {
+            RecipeScrollRequest request = new RecipeScrollRequest(cursor, size, sort_field, direction, count);
+            return ResponseEntity.ok(recipeService.scrollAdvancedSearch(name, ingredients, tagsID, request));
+        }
 
         Pageable pageable = PageRequest.of(page_number, size);
 
@@ -53,4 +90,25 @@ public class RecipeSearchController {
 
         return ResponseEntity.ok(results);
     }
+
+    @Operation(
+        summary = "Pantry search",
+        description = "Finds recipes that can be cooked from the given ingredients. A recipe must contain at least " +
+                "min_matched of them: 1 matches any ingredient, their number matches all of them. Recipes are " +
+                "ordered by the share of their ingredients that are available, and list the missing ones."
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Successfully retrieved matching recipes"
+    )
+    @GetMapping("/search/pantry")
+    public ResponseEntity<Page<IngredientMatchDTO>> pantrySearch(
+            @RequestParam List<String> ingredients,
+            @RequestParam(required = false, defaultValue = "1") int min_matched,
+            @RequestParam(required = false, defaultValue = "0") int page_number,
+            @RequestParam(required = false, defaultValue = "10") int size) {
+
+        Pageable pageable = PageRequest.of(page_number, size);
+        return ResponseEntity.ok(ingredientIndexService.findByIngredients(ingredients, min_matched, pageable));
+    }
 }
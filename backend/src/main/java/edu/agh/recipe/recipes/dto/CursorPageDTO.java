@@ -0,0 +1,15 @@
+package edu.agh.recipe.recipes.dto;
+
+import java.util.List;
+
+/**
+ * One page of results in cursor (keyset) pagination mode.
+ * The {@code nextCursor} token is passed back to fetch the following page.
+ * The total number of elements is only computed when explicitly requested.
+ */
+public record CursorPageDTO<T>(
+        List<T> content,
+        String nextCursor,
+        boolean hasNext,
+        Long totalElements
+) {}
@@ -9,6 +9,7 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -33,7 +34,11 @@ public record RecipeDTO(
 
     Set<TagDTO> tags,
 
-    Set<ImageDTO> images
+    Set<ImageDTO> images,
+
+    Instant createdAt,
+
+    Instant modifiedAt
 ) {
     public static RecipeDTO fromEntity(Recipe recipe, List<TagDTO> tags, List<ImageDTO> images) {
         return new RecipeDTO(
@@ -43,7 +48,9 @@ public record RecipeDTO(
             recipe.getIngredients().stream().map(RecipeIngredientResponseDTO::fromEntity).toList(),
             recipe.getSteps().stream().map(RecipeStepDTO::fromEntity).toList(),
             new HashSet<>(tags),
-            new HashSet<>(images)
+            new HashSet<>(images),
+            recipe.getCreatedAt(),
+            recipe.getModifiedAt()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package edu.agh.recipe.recipes.dto;
+
+import java.util.List;
+
+/**
+ * Filter shared by the recipe listing and search operations.
+ * Every criterion is optional; the ones that are set must all match.
+ *
+ * @param name part of the recipe name
+ * @param anyIngredients the recipe contains at least one of these ingredients
+ * @param allIngredients the recipe contains all of these ingredients
+ * @param anyTagIds the recipe has at least one of these tags
+ * @param allTagIds the recipe has all of these tags
+ * @param tagName the recipe has the tag with this name
+ */
+public record RecipeFilter(
+        String name,
+        List<String> anyIngredients,
+        List<String> allIngredients,
+        List<String> anyTagIds,
+        List<String> allTagIds,
+        String tagName
+) {
+    public static RecipeFilter none() {
+        return new RecipeFilter(null, null, null, null, null, null);
+    }
+
+    public static RecipeFilter byAnyIngredients(List<String> ingredients) {
+        return new RecipeFilter(null, ingredients, null, null, null, null);
+    }
+
+    public static RecipeFilter byAllIngredients(List<String> ingredients) {
+        return new RecipeFilter(null, null, ingredients, null, null, null);
+    }
+
+    public static RecipeFilter byTagId(String tagId) {
+        return new RecipeFilter(null, null, null, null, List.of(tagId), null);
+    }
+
+    public static RecipeFilter byTagName(String tagName) {
+        return new RecipeFilter(null, null, null, null, null, tagName);
+    }
+
+    public static RecipeFilter byAnyTags(List<String> tagIds) {
+        return new RecipeFilter(null, null, null, tagIds, null, null);
+    }
+
+    public static RecipeFilter byAllTags(List<String> tagIds) {
+        return new RecipeFilter(null, null, null, null, tagIds, null);
+    }
+
+    public static RecipeFilter advanced(String name, List<String> ingredients, List<String> tagIds) {
+        return new RecipeFilter(name, null, ingredients, null, tagIds, null);
+    }
+}
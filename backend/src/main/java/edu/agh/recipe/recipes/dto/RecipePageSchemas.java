@@ -0,0 +1,33 @@
+package edu.agh.recipe.recipes.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Response shapes of the paged recipe endpoints, used only by the API documentation.
+ * Generic types cannot be named in annotations, so each combination of pagination
+ * mode and view is spelled out here.
+ */
+public final class RecipePageSchemas {
+
+    private RecipePageSchemas() {
+    }
+
+    @Schema(description = "Page metadata in offset pagination mode")
+    public record PageMetadata(long size, long number, long totalElements, long totalPages) {}
+
+    @Schema(description = "Page of full recipes in offset pagination mode")
+    public record RecipePage(List<RecipeDTO> content, PageMetadata page) {}
+
+    @Schema(description = "Page of recipe summaries in offset pagination mode")
+    public record RecipeSummaryPage(List<RecipeSummaryDTO> content, PageMetadata page) {}
+
+    @Schema(description = "Page of full recipes in cursor pagination mode")
+    public record RecipeCursorPage(List<RecipeDTO> content, String nextCursor, boolean hasNext,
+                                   Long totalElements) {}
+
+    @Schema(description = "Page of recipe summaries in cursor pagination mode")
+    public record RecipeSummaryCursorPage(List<RecipeSummaryDTO> content, String nextCursor, boolean hasNext,
+                                          Long totalElements) {}
+}
@@ -0,0 +1,34 @@
+package edu.agh.recipe.recipes.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Parameters of a cursor (keyset) paginated request.
+ *
+ * @param cursor continuation token returned with the previous page, empty for the first page
+ * @param size maximum number of recipes to return, from 1 to {@value #MAX_SIZE}
+ * @param sortField sort field used for the first page, the cursor carries it for the following ones
+ * @param direction sort direction used for the first page (asc/desc)
+ * @param includeCount whether the total number of matching recipes should be counted
+ */
+public record RecipeScrollRequest(
+        String cursor,
+        int size,
+        String sortField,
+        String direction,
+        boolean includeCount
+) {
+    public static final int MAX_SIZE = 100;
+
+    public RecipeScrollRequest {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Page size must be between 1 and " + MAX_SIZE + ".");
+        }
+    }
+
+    public boolean isFirstPage() {
+        return cursor == null || cursor.isBlank();
+    }
+}
@@ -0,0 +1,14 @@
+package edu.agh.recipe.recipes.dto;
+
+import java.util.Set;
+
+/**
+ * Slim representation of a recipe for list views such as recipe cards.
+ * It leaves out the ingredients, steps and full tag and image details.
+ */
+public record RecipeSummaryDTO(
+        String id,
+        String name,
+        String primaryImageId,
+        Set<String> tagIds
+) {}
@@ -0,0 +1,14 @@
+package edu.agh.recipe.recipes.dto;
+
+import edu.agh.recipe.recipes.model.RecipeTombstone;
+
+import java.time.Instant;
+
+public record RecipeTombstoneDTO(
+        String id,
+        Instant deletedAt
+) {
+    public static RecipeTombstoneDTO fromEntity(RecipeTombstone tombstone) {
+        return new RecipeTombstoneDTO(tombstone.getRecipeId(), tombstone.getDeletedAt());
+    }
+}
@@ -0,0 +1,29 @@
+package edu.agh.recipe.recipes.listener;
+
+import edu.agh.recipe.recipes.model.Recipe;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Stamps the creation and modification times of a recipe every time it is saved.
+ * Code that replaces a stored recipe with a new instance has to copy the creation time over.
+ * The time comes from this node's clock before the write is committed; the change export
+ * covers the gap with its safety window. Partial updates set {@code modifiedAt} with
+ * {@code $currentDate} instead.
+ */
+@Component
+public class RecipeTimestampListener extends AbstractMongoEventListener<Recipe> {
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Recipe> event) {
+        Recipe recipe = event.getSource();
+        Instant now = Instant.now();
+        if (recipe.getCreatedAt() == null) {
+            recipe.setCreatedAt(now);
+        }
+        recipe.setModifiedAt(now);
+    }
+}
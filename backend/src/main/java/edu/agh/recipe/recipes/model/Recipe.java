@@ -1,14 +1,30 @@
 package edu.agh.recipe.recipes.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+/**
+ * Every index ends with the name and id, the sort order used by page and cursor listings.
+ * Ingredient names and tag ids are both arrays, so they cannot share one compound index;
+ * a query filtering on both uses one of them and checks the other on the fetched recipes.
+ */
 @Document("recipes")
+@CompoundIndexes({
+        @CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}"),
+        @CompoundIndex(name = "ingredient_name_id", def = "{'ingredients.ingredientName': 1, 'name': 1, '_id': 1}"),
+        @CompoundIndex(name = "tag_name_id", def = "{'tagIds': 1, 'name': 1, '_id': 1}"),
+        @CompoundIndex(name = "created_id", def = "{'createdAt': 1, '_id': 1}"),
+        @CompoundIndex(name = "modified_id", def = "{'modifiedAt': 1, '_id': 1}")
+})
 public class Recipe {
     @Id
     private String id;
@@ -18,7 +34,17 @@ public class Recipe {
     private List<RecipeStep> steps = new ArrayList<>();
     private Set<String> tagIds = new HashSet<>();
     private Set<String> imageIds = new HashSet<>();
-
+    // Copy of the primary image id, so recipe summaries can be built without reading image metadata.
+    private String primaryImageId;
+    // Maintained by RecipeTimestampListener.
+    private Instant createdAt;
+    private Instant modifiedAt;
+
+    // Search fields derived from the name, maintained by RecipeSearchFieldsListener.
+    @Indexed
+    private String searchName;
+    @Indexed
+    private Set<String> nameNgrams = new HashSet<>();
 
     public Recipe(String name, String description, List<RecipeIngredient> ingredients, List<RecipeStep> steps, Set<String> tagIds) {
         this.name = name;
@@ -92,4 +118,44 @@ public class Recipe {
         this.imageIds = imageIds;
     }
 
+    public String getPrimaryImageId() {
+        return primaryImageId;
+    }
+
+    public void setPrimaryImageId(String primaryImageId) {
+        this.primaryImageId = primaryImageId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getModifiedAt() {
+        return modifiedAt;
+    }
+
+    public void setModifiedAt(Instant modifiedAt) {
+        this.modifiedAt = modifiedAt;
+    }
+
+    public String getSearchName() {
+        return searchName;
+    }
+
+    public void setSearchName(String searchName) {
+        this.searchName = searchName;
+    }
+
+    public Set<String> getNameNgrams() {
+        return nameNgrams;
+    }
+
+    public void setNameNgrams(Set<String> nameNgrams) {
+        this.nameNgrams = nameNgrams;
+    }
+
 }
@@ -0,0 +1,45 @@
+package edu.agh.recipe.recipes.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Marks a deleted recipe, so incremental exports can report the deletion.
+ * Tombstones expire after {@code recipe.export.tombstones.retention}; older
+ * backups need a full export. Changing the retention of an existing index
+ * requires dropping the index or a {@code collMod}.
+ */
+@Document("recipeTombstones")
+public class RecipeTombstone {
+    @Id
+    private String recipeId;
+    @Indexed(expireAfter = "#{@environment.getProperty('recipe.export.tombstones.retention', '90d')}")
+    private Instant deletedAt;
+
+    public RecipeTombstone(String recipeId, Instant deletedAt) {
+        this.recipeId = recipeId;
+        this.deletedAt = deletedAt;
+    }
+
+    public RecipeTombstone() {
+    }
+
+    public String getRecipeId() {
+        return recipeId;
+    }
+
+    public void setRecipeId(String recipeId) {
+        this.recipeId = recipeId;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Instant deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
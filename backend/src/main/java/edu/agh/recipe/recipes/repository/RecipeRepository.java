@@ -21,13 +21,6 @@ public interface RecipeRepository extends MongoRepository<Recipe, String> {
     @Query("{ 'ingredients.ingredientName': { $all: ?0 } }")
     Page<Recipe> findByAllIngredientsContaining(List<String> ingredientNames, Pageable pageable);
 
-    /**
-     * Finds recipes whose names start with the given prefix, case-insensitively.
-     * It is used for search suggestions.
-     */
-    @Query("{ 'name':  { $regex: '^?0', $options:  'i' } }")
-    Page<Recipe> findByNameStartingWithIgnoreCase(String namePrefix, Pageable pageable);
-
     /**
      * Find recipes by tag id.
      */
@@ -44,11 +37,4 @@ public interface RecipeRepository extends MongoRepository<Recipe, String> {
      */
     @Query("{ 'tagIds': { $all: ?0 } }")
     Page<Recipe> findByTagIdsAll(List<String> tagIds, Pageable pageable);
-
-    @Query("{ $and: [ " +
-           "?#{ [0] == null ? { $expr: true } : { 'name': { $regex: [0], $options: 'i' } } }, " +
-           "?#{ [1] == null ? { $expr: true } : { 'ingredients.ingredientName': { $all: [1] } } }, " +
-           "?#{ [2] == null ? { $expr: true } : { 'tagIds': { $all: [2] } } } " +
-           "] }")
-    Page<Recipe> advancedSearch(String name, List<String> ingredients, List<String> tagIds, Pageable pageable);
 }
@@ -6,7 +6,9 @@ import edu.agh.recipe.images.service.ImageService;
 import edu.agh.recipe.recipes.dto.*;
 import edu.agh.recipe.recipes.model.Recipe;
 import edu.agh.recipe.recipes.model.RecipeStep;
+import edu.agh.recipe.recipes.model.RecipeTombstone;
 import edu.agh.recipe.recipes.repository.RecipeRepository;
+import edu.agh.recipe.search.service.RecipeSearchService;
 import edu.agh.recipe.tags.dto.CreateTagDTO;
 import edu.agh.recipe.tags.dto.TagDTO;
 import edu.agh.recipe.tags.dto.TagReferenceDTO;
@@ -15,14 +17,27 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 @Validated
@@ -30,25 +45,78 @@ public class DefaultRecipeService implements RecipeService {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultRecipeService.class);
     private static final String AUTO_GENERATED_CATEGORY_NAME = "auto-generated";
+    private static final Set<String> SCROLL_SORT_FIELDS = Set.of("name", "createdAt", "modifiedAt");
+    private static final String RELEVANCE_SORT_FIELD = "relevance";
+    private static final String[] SUMMARY_FIELDS = {"name", "primaryImageId", "imageIds", "tagIds"};
 
     private final RecipeRepository recipeRepository;
     private final TagService tagService;
     private final ImageService imageService;
-
-    public DefaultRecipeService(RecipeRepository recipeRepository, TagService tagService, ImageService imageService) {
+    private final RecipeHydrator recipeHydrator;
+    private final MongoTemplate mongoTemplate;
+    private final RecipeSearchService recipeSearchService;
+
+    public DefaultRecipeService(RecipeRepository recipeRepository,
+                                TagService tagService, ImageService imageService,
+                                RecipeHydrator recipeHydrator, MongoTemplate mongoTemplate,
+                                RecipeSearchService recipeSearchService) {
         this.recipeRepository = Objects.requireNonNull(recipeRepository);
         this.tagService = Objects.requireNonNull(tagService);
         this.imageService = Objects.requireNonNull(imageService);
+        this.recipeHydrator = Objects.requireNonNull(recipeHydrator);
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+        this.recipeSearchService = Objects.requireNonNull(recipeSearchService);
     }
 
     @Override
     public Page<RecipeDTO> getAllRecipes(Pageable pageable) {
         Page<Recipe> recipePage = recipeRepository.findAll(pageable);
-        return recipePage.map(recipe -> {
-            List<TagDTO> tags = tagService.getTagsByIds(new ArrayList<>(recipe.getTagIds()));
-            List<ImageDTO> images = imageService.getImagesDataByIds(new ArrayList<>(recipe.getImageIds()));
-            return RecipeDTO.fromEntity(recipe, tags, images);
-        });
+        return recipeHydrator.hydratePage(recipePage);
+    }
+
+    @Override
+    public Stream<RecipeDTO> streamAllRecipes(int batchSize) {
+        return streamRecipes(new Query().with(Sort.by("name", "_id")), batchSize);
+    }
+
+    @Override
+    public Stream<RecipeDTO> streamRecipesModifiedBetween(Instant from, Instant to, int batchSize) {
+        Query query = new Query(Criteria.where("modifiedAt").gt(from).lte(to))
+                .with(Sort.by("modifiedAt", "_id"));
+        return streamRecipes(query, batchSize);
+    }
+
+    @Override
+    public Stream<RecipeTombstoneDTO> streamRecipesDeletedBetween(Instant from, Instant to) {
+        Query query = new Query(Criteria.where("deletedAt").gt(from).lte(to))
+                .with(Sort.by("deletedAt", "_id"));
+        return mongoTemplate.stream(query, RecipeTombstone.class).map(RecipeTombstoneDTO::fromEntity);
+    }
+
+    private Stream<RecipeDTO> streamRecipes(Query query, int batchSize) {
+        Stream<Recipe> recipes = mongoTemplate.stream(query.cursorBatchSize(batchSize), Recipe.class);
+
+        Iterator<Recipe> recipeIterator = recipes.iterator();
+        Iterator<List<Recipe>> chunks = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return recipeIterator.hasNext();
+            }
+
+            @Override
+            public List<Recipe> next() {
+                List<Recipe> chunk = new ArrayList<>(batchSize);
+                while (chunk.size() < batchSize && recipeIterator.hasNext()) {
+                    chunk.add(recipeIterator.next());
+                }
+                return chunk;
+            }
+        };
+
+        // Tags and images are looked up once per chunk, the cursor is closed with the stream.
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                .flatMap(chunk -> recipeHydrator.hydrateAll(chunk).stream())
+                .onClose(recipes::close);
     }
 
     @Override
@@ -100,6 +168,7 @@ public class DefaultRecipeService implements RecipeService {
             newTagIds
         );
         recipe.setId(id);
+        recipe.setCreatedAt(existingRecipe.getCreatedAt());
 
         Recipe updatedRecipe = recipeRepository.save(recipe);
 
@@ -117,11 +186,14 @@ public class DefaultRecipeService implements RecipeService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Recipe not found."));
 
         // Decrease tag usage counts before deletion.
+        Map<String, Integer> usageDeltas = new HashMap<>();
         for (String tagId : recipe.getTagIds()) {
-            tagService.decrementUsageCount(tagId);
+            usageDeltas.merge(tagId, -1, Integer::sum);
         }
+        tagService.updateUsageCounts(usageDeltas);
 
         recipeRepository.deleteById(id);
+        writeTombstones(List.of(id));
     }
 
     @Override
@@ -132,14 +204,28 @@ public class DefaultRecipeService implements RecipeService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "One or more recipes not found.");
         }
 
-        // Decrease tag usage counts for all recipes being deleted.
+        // Decrease tag usage counts for all recipes being deleted in one write.
+        Map<String, Integer> usageDeltas = new HashMap<>();
         for (Recipe recipe : recipesToDelete) {
             for (String tagId : recipe.getTagIds()) {
-                tagService.decrementUsageCount(tagId);
+                usageDeltas.merge(tagId, -1, Integer::sum);
             }
         }
+        tagService.updateUsageCounts(usageDeltas);
 
         recipeRepository.deleteAllById(ids);
+        writeTombstones(ids);
+    }
+
+    /**
+     * Records the deletions with the database clock, which every application node shares.
+     */
+    private void writeTombstones(List<String> ids) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RecipeTombstone.class);
+        for (String id : ids) {
+            bulkOperations.upsert(Query.query(Criteria.where("_id").is(id)), new Update().currentDate("deletedAt"));
+        }
+        bulkOperations.execute();
     }
 
     @Override
@@ -148,11 +234,7 @@ public class DefaultRecipeService implements RecipeService {
                 .map(String::toLowerCase)
                 .toList();
         Page<Recipe> recipePage = recipeRepository.findByIngredientsIngredientNameIn(lowerCaseIngredients, pageable);
-        return recipePage.map(recipe -> {
-            List<TagDTO> tags = tagService.getTagsByIds(new ArrayList<>(recipe.getTagIds()));
-            List<ImageDTO> images = imageService.getImagesDataByIds(new ArrayList<>(recipe.getImageIds()));
-            return RecipeDTO.fromEntity(recipe, tags, images);
-        });
+        return recipeHydrator.hydratePage(recipePage);
     }
 
     @Override
@@ -161,31 +243,19 @@ public class DefaultRecipeService implements RecipeService {
                 .map(String::toLowerCase)
                 .toList();
         Page<Recipe> recipePage = recipeRepository.findByAllIngredientsContaining(lowerCaseIngredientNames, pageable);
-        return recipePage.map(recipe -> {
-            List<TagDTO> tags = tagService.getTagsByIds(new ArrayList<>(recipe.getTagIds()));
-            List<ImageDTO> images = imageService.getImagesDataByIds(new ArrayList<>(recipe.getImageIds()));
-            return RecipeDTO.fromEntity(recipe, tags, images);
-        });
+        return recipeHydrator.hydratePage(recipePage);
     }
 
     @Override
     public Page<RecipeDTO> suggestRecipesByName(String nameQuery, Pageable pageable) {
-        Page<Recipe> recipePage = recipeRepository.findByNameStartingWithIgnoreCase(nameQuery, pageable);
-        return recipePage.map(recipe -> {
-            List<TagDTO> tags = tagService.getTagsByIds(new ArrayList<>(recipe.getTagIds()));
-            List<ImageDTO> images = imageService.getImagesDataByIds(new ArrayList<>(recipe.getImageIds()));
-            return RecipeDTO.fromEntity(recipe, tags, images);
-        });
+        Page<Recipe> recipePage = findPage(recipeSearchService.nameStartsWith(nameQuery), pageable);
+        return recipeHydrator.hydratePage(recipePage);
     }
 
     @Override
     public Page<RecipeDTO> findRecipesByTag(String tagId, Pageable pageable) {
         Page<Recipe> recipePage = recipeRepository.findByTagIdsContaining(tagId, pageable);
-        return recipePage.map(recipe -> {
-            List<TagDTO> tags = tagService.getTagsByIds(new ArrayList<>(recipe.getTagIds()));
-            List<ImageDTO> images = imageService.getImagesDataByIds(new ArrayList<>(recipe.getImageIds()));
-            return RecipeDTO.fromEntity(recipe, tags, images);
-        });
+        return recipeHydrator.hydratePage(recipePage);
     }
 
     @Override
@@ -202,32 +272,23 @@ public class DefaultRecipeService implements RecipeService {
     @Override
     public Page<RecipeDTO> findRecipesByAnyTags(List<String> tagIds, Pageable pageable) {
         Page<Recipe> recipePage = recipeRepository.findByTagIdsIn(tagIds, pageable);
-        return recipePage.map(recipe -> {
-            List<TagDTO> tags = tagService.getTagsByIds(new ArrayList<>(recipe.getTagIds()));
-            List<ImageDTO> images = imageService.getImagesDataByIds(new ArrayList<>(recipe.getImageIds()));
-            return RecipeDTO.fromEntity(recipe, tags, images);
-        });
+        return recipeHydrator.hydratePage(recipePage);
     }
 
     @Override
     public Page<RecipeDTO> findRecipesByAllTags(List<String> tagIds, Pageable pageable) {
         Page<Recipe> recipePage = recipeRepository.findByTagIdsAll(tagIds, pageable);
-        return recipePage.map(recipe -> {
-            List<TagDTO> tags = tagService.getTagsByIds(new ArrayList<>(recipe.getTagIds()));
-            List<ImageDTO> images = imageService.getImagesDataByIds(new ArrayList<>(recipe.getImageIds()));
-            return RecipeDTO.fromEntity(recipe, tags, images);
-        });
+        return recipeHydrator.hydratePage(recipePage);
     }
 
     @Override
     public Page<RecipeDTO> advancedSearch(String name, List<String> ingredients, List<String> tagIds,
                                          String sortField, String direction, Pageable pageable) {
-        // Process the name parameter for partial matching.
-        String namePattern = name != null ? ".*" + name + ".*" : null;
+        Criteria filter = filterCriteria(RecipeFilter.advanced(name, ingredients, tagIds)).orElseThrow();
 
-        // Convert ingredient names to lowercase for case-insensitive matching.
-        List<String> lowerCaseIngredients = ingredients != null ?
-                ingredients.stream().map(String::toLowerCase).toList() : null;
+        if (name != null && RELEVANCE_SORT_FIELD.equals(sortField)) {
+            return recipeHydrator.hydratePage(recipeSearchService.findByRelevance(name, filter, pageable));
+        }
 
         Sort sort = createSort(sortField, direction);
 
@@ -237,13 +298,84 @@ public class DefaultRecipeService implements RecipeService {
                 pageable.getPageSize(),
                 sort);
 
-        Page<Recipe> recipePage = recipeRepository.advancedSearch(namePattern, lowerCaseIngredients, tagIds, sortedPageable);
+        Page<Recipe> recipePage = findPage(filter, sortedPageable);
+
+        return recipeHydrator.hydratePage(recipePage);
+    }
+
+    @Override
+    public CursorPageDTO<RecipeDTO> scrollAllRecipes(RecipeScrollRequest request) {
+        return scrollRecipes(RecipeFilter.none(), request);
+    }
 
-        return recipePage.map(recipe -> {
-            List<TagDTO> tags = tagService.getTagsByIds(new ArrayList<>(recipe.getTagIds()));
-            List<ImageDTO> images = imageService.getImagesDataByIds(new ArrayList<>(recipe.getImageIds()));
-            return RecipeDTO.fromEntity(recipe, tags, images);
-        });
+    @Override
+    public CursorPageDTO<RecipeDTO> scrollRecipesContainingAnyIngredients(List<String> ingredients,
+                                                                          RecipeScrollRequest request) {
+        return scrollRecipes(RecipeFilter.byAnyIngredients(ingredients), request);
+    }
+
+    @Override
+    public CursorPageDTO<RecipeDTO> scrollRecipesContainingAllIngredients(List<String> ingredientNames,
+                                                                          RecipeScrollRequest request) {
+        return scrollRecipes(RecipeFilter.byAllIngredients(ingredientNames), request);
+    }
+
+    @Override
+    public CursorPageDTO<RecipeDTO> scrollRecipesByTag(String tagId, RecipeScrollRequest request) {
+        return scrollRecipes(RecipeFilter.byTagId(tagId), request);
+    }
+
+    @Override
+    public CursorPageDTO<RecipeDTO> scrollRecipesByTagName(String tagName, RecipeScrollRequest request) {
+        return scrollRecipes(RecipeFilter.byTagName(tagName), request);
+    }
+
+    @Override
+    public CursorPageDTO<RecipeDTO> scrollRecipesByAnyTags(List<String> tagIds, RecipeScrollRequest request) {
+        return scrollRecipes(RecipeFilter.byAnyTags(tagIds), request);
+    }
+
+    @Override
+    public CursorPageDTO<RecipeDTO> scrollRecipesByAllTags(List<String> tagIds, RecipeScrollRequest request) {
+        return scrollRecipes(RecipeFilter.byAllTags(tagIds), request);
+    }
+
+    @Override
+    public CursorPageDTO<RecipeDTO> scrollAdvancedSearch(String name, List<String> ingredients, List<String> tagIds,
+                                                         RecipeScrollRequest request) {
+        return scrollRecipes(RecipeFilter.advanced(name, ingredients, tagIds), request);
+    }
+
+    @Override
+    public Page<RecipeSummaryDTO> findRecipeSummaries(RecipeFilter filter, String sortField, String direction,
+                                                      Pageable pageable) {
+        Optional<Criteria> criteria = filterCriteria(filter);
+        if (criteria.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+
+        Page<Recipe> recipePage;
+        if (filter.name() != null && RELEVANCE_SORT_FIELD.equals(sortField)) {
+            recipePage = recipeSearchService.findByRelevance(filter.name(), criteria.get(), pageable);
+        } else {
+            Pageable sortedPageable = PageRequest.of(
+                    pageable.getPageNumber(),
+                    pageable.getPageSize(),
+                    createSort(sortField, direction));
+            recipePage = findPage(criteria.get(), sortedPageable, SUMMARY_FIELDS);
+        }
+
+        return new PageImpl<>(
+                recipeHydrator.summarizeAll(recipePage.getContent()),
+                recipePage.getPageable(),
+                recipePage.getTotalElements());
+    }
+
+    @Override
+    public CursorPageDTO<RecipeSummaryDTO> scrollRecipeSummaries(RecipeFilter filter, RecipeScrollRequest request) {
+        return filterCriteria(filter)
+                .map(criteria -> scroll(criteria, request, recipeHydrator::summarizeAll, SUMMARY_FIELDS))
+                .orElseGet(() -> emptyCursorPage(request));
     }
 
     public RecipeDTO addTagsToRecipe(String recipeId, Set<TagReferenceDTO> tagReferences) {
@@ -329,6 +461,88 @@ public class DefaultRecipeService implements RecipeService {
 
     @Override
     public RecipeDTO uploadImageForRecipe(String recipeId, String description, MultipartFile image){
+        return addImageToRecipe(recipeId, description, metadata -> imageService.uploadImage(image, metadata));
+    }
+
+    @Override
+    public RecipeDTO uploadImageForRecipe(String recipeId, String description, String filename,
+                                          String contentType, InputStream image) {
+        return addImageToRecipe(recipeId, description,
+                metadata -> imageService.uploadImage(image, filename, contentType, metadata));
+    }
+
+    /**
+     * Uploads the images in parallel and adds them to the recipe with a single
+     * partial update. The first image becomes primary if the recipe had none.
+     */
+    @Override
+    public RecipeDTO uploadImagesForRecipe(String recipeId, List<String> descriptions, List<MultipartFile> images) {
+        if (images.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No images to upload.");
+        }
+
+        if (!recipeRepository.existsById(recipeId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Recipe not found.");
+        }
+
+        // Images are stored as not primary; the first one becomes primary below only if
+        // the recipe still has no primary image once they are attached.
+        Date uploadDate = new Date();
+        List<ImageMetadataDTO> imageMetadata = IntStream.range(0, images.size())
+                .mapToObj(i -> new ImageMetadataDTO(
+                        recipeId,
+                        descriptions != null && i < descriptions.size() ? descriptions.get(i) : null,
+                        false,
+                        uploadDate
+                ))
+                .toList();
+        List<String> imageIds = imageService.uploadImages(images, imageMetadata);
+
+        // A partial update skips RecipeTimestampListener, so the modification time is set here.
+        Recipe updatedRecipe = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(recipeId)),
+                new Update()
+                        .addToSet("imageIds").each(imageIds.toArray())
+                        .currentDate("modifiedAt"),
+                FindAndModifyOptions.options().returnNew(true),
+                Recipe.class
+        );
+        if (updatedRecipe == null) {
+            imageIds.forEach(imageService::removeImageById);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Recipe not found.");
+        }
+
+        if (updatedRecipe.getPrimaryImageId() == null) {
+            // Older recipes mark their primary image only in the image metadata; it is
+            // recorded on the recipe instead of giving the recipe a second primary image.
+            List<String> existingImageIds = updatedRecipe.getImageIds().stream()
+                    .filter(imageId -> !imageIds.contains(imageId))
+                    .toList();
+            String legacyPrimaryId = imageService.getImagesDataByIds(existingImageIds).stream()
+                    .filter(ImageDTO::isPrimary)
+                    .map(ImageDTO::id)
+                    .findFirst()
+                    .orElse(null);
+            String primaryImageId = legacyPrimaryId != null ? legacyPrimaryId : imageIds.getFirst();
+
+            // Conditional on the stored value, so concurrent uploads cannot both set a primary image.
+            long claimed = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(recipeId).and("primaryImageId").is(null)),
+                    new Update().set("primaryImageId", primaryImageId),
+                    Recipe.class
+            ).getModifiedCount();
+            if (claimed > 0) {
+                if (legacyPrimaryId == null) {
+                    imageService.setImagePrimary(primaryImageId, true);
+                }
+                updatedRecipe.setPrimaryImageId(primaryImageId);
+            }
+        }
+
+        return recipeHydrator.hydrateAll(List.of(updatedRecipe)).getFirst();
+    }
+
+    private RecipeDTO addImageToRecipe(String recipeId, String description, Function<ImageMetadataDTO, String> upload) {
         Recipe recipe = recipeRepository.findById(recipeId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Recipe not found."));
 
@@ -336,11 +550,14 @@ public class DefaultRecipeService implements RecipeService {
                 recipeId, description, recipe.getImageIds().isEmpty(), new Date()
         );
 
-        String imageId = imageService.uploadImage(image, imageMetadataDTO);
+        String imageId = upload.apply(imageMetadataDTO);
 
         Set<String> imageIds = new HashSet<>(recipe.getImageIds());
         imageIds.add(imageId);
         recipe.setImageIds(imageIds);
+        if (imageMetadataDTO.isPrimary()) {
+            recipe.setPrimaryImageId(imageId);
+        }
 
         Recipe savedRecipe = recipeRepository.save(recipe);
 
@@ -354,11 +571,18 @@ public class DefaultRecipeService implements RecipeService {
         Recipe recipe = recipeRepository.findById(recipeId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Recipe not found."));
 
+        if (!recipe.getImageIds().contains(imageId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Image not found in recipe.");
+        }
+
         imageService.removeImageById(imageId);
 
         Set<String> imageIds = new HashSet<>(recipe.getImageIds());
         imageIds.remove(imageId);
         recipe.setImageIds(imageIds);
+        if (imageId.equals(recipe.getPrimaryImageId())) {
+            recipe.setPrimaryImageId(null);
+        }
 
         Recipe savedRecipe = recipeRepository.save(recipe);
 
@@ -395,6 +619,7 @@ public class DefaultRecipeService implements RecipeService {
             }
         }
 
+        recipe.setPrimaryImageId(imageId);
         Recipe savedRecipe = recipeRepository.save(recipe);
 
         List<TagDTO> tags = tagService.getTagsByIds(new ArrayList<>(savedRecipe.getTagIds()));
@@ -415,6 +640,12 @@ public class DefaultRecipeService implements RecipeService {
         Set<String> existingImageIds = new HashSet<>(recipe.getImageIds());
         existingImageIds.addAll(imageIds);
         recipe.setImageIds(existingImageIds);
+        if (recipe.getPrimaryImageId() == null) {
+            imageDTOs.stream()
+                    .filter(ImageDTO::isPrimary)
+                    .findFirst()
+                    .ifPresent(primaryImage -> recipe.setPrimaryImageId(primaryImage.id()));
+        }
 
         Recipe savedRecipe = recipeRepository.save(recipe);
 
@@ -474,19 +705,144 @@ public class DefaultRecipeService implements RecipeService {
      * Updates tag usage counts when tags are changed
      */
     private void updateTagUsageCounts(Set<String> oldTagIds, Set<String> newTagIds) {
+        Map<String, Integer> usageDeltas = new HashMap<>();
+
         // Decrement usage for tags that were removed.
         Set<String> removedTags = new HashSet<>(oldTagIds);
         removedTags.removeAll(newTagIds);
         for (String tagId : removedTags) {
-            tagService.decrementUsageCount(tagId);
+            usageDeltas.put(tagId, -1);
         }
 
         // Increment usage for new tags that were added.
         Set<String> addedTags = new HashSet<>(newTagIds);
         addedTags.removeAll(oldTagIds);
         for (String tagId : addedTags) {
-            tagService.incrementUsageCount(tagId);
+            usageDeltas.put(tagId, 1);
         }
+
+        tagService.updateUsageCounts(usageDeltas);
+    }
+
+    /**
+     * Translates the filter into Mongo criteria. The name is matched through the
+     * search index, ingredient names are matched in lowercase. An empty result
+     * means that nothing can match, e.g. because the filtered tag does not exist.
+     */
+    private Optional<Criteria> filterCriteria(RecipeFilter filter) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter.name() != null) {
+            criteria.add(recipeSearchService.nameContains(filter.name()));
+        }
+        if (filter.anyIngredients() != null) {
+            criteria.add(Criteria.where("ingredients.ingredientName").in(toLowerCase(filter.anyIngredients())));
+        }
+        if (filter.allIngredients() != null) {
+            criteria.add(Criteria.where("ingredients.ingredientName").all(toLowerCase(filter.allIngredients())));
+        }
+        if (filter.anyTagIds() != null) {
+            criteria.add(Criteria.where("tagIds").in(filter.anyTagIds()));
+        }
+        if (filter.allTagIds() != null) {
+            criteria.add(Criteria.where("tagIds").all(filter.allTagIds()));
+        }
+        if (filter.tagName() != null) {
+            try {
+                criteria.add(Criteria.where("tagIds").is(tagService.getTagByName(filter.tagName()).id()));
+            } catch (ResponseStatusException e) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria));
+    }
+
+    private List<String> toLowerCase(List<String> values) {
+        return values.stream().map(String::toLowerCase).toList();
+    }
+
+    /**
+     * Loads one page of recipes. When fields are given, only those fields are
+     * read from the recipe documents.
+     */
+    private Page<Recipe> findPage(Criteria filter, Pageable pageable, String... includedFields) {
+        Query query = new Query(filter).with(pageable);
+        if (includedFields.length > 0) {
+            query.fields().include(includedFields);
+        }
+        List<Recipe> recipes = mongoTemplate.find(query, Recipe.class);
+        return PageableExecutionUtils.getPage(recipes, pageable,
+                () -> mongoTemplate.count(new Query(filter), Recipe.class));
+    }
+
+    private CursorPageDTO<RecipeDTO> scrollRecipes(RecipeFilter filter, RecipeScrollRequest request) {
+        return filterCriteria(filter)
+                .map(criteria -> scroll(criteria, request, recipeHydrator::hydrateAll))
+                .orElseGet(() -> emptyCursorPage(request));
+    }
+
+    private <T> CursorPageDTO<T> emptyCursorPage(RecipeScrollRequest request) {
+        return new CursorPageDTO<>(List.of(), null, false, request.includeCount() ? 0L : null);
+    }
+
+    /**
+     * Runs a keyset paginated query: instead of skipping the previous pages, the
+     * query starts right after the position stored in the cursor. The extra recipe
+     * fetched over the page size only tells whether there is a next page.
+     */
+    private <T> CursorPageDTO<T> scroll(Criteria filter, RecipeScrollRequest request,
+                                        Function<List<Recipe>, List<T>> mapper, String... includedFields) {
+        RecipeCursor position = request.isFirstPage() ? null : RecipeCursor.decode(request.cursor());
+        if (position != null && !SCROLL_SORT_FIELDS.contains(position.sortField())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+        }
+
+        Sort.Order order = position != null
+                ? Sort.Order.by(position.sortField()).with(position.direction())
+                : createSort(request.sortField(), request.direction()).iterator().next();
+
+        Query query = new Query(position != null
+                ? new Criteria().andOperator(filter, position.toCriteria())
+                : filter)
+                .with(Sort.by(order.getDirection(), order.getProperty(), "_id"))
+                .limit(request.size() + 1);
+        if (includedFields.length > 0) {
+            query.fields().include(includedFields).include(order.getProperty());
+        }
+
+        List<Recipe> recipes = mongoTemplate.find(query, Recipe.class);
+        boolean hasNext = recipes.size() > request.size();
+        if (hasNext) {
+            recipes = recipes.subList(0, request.size());
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Recipe last = recipes.getLast();
+            nextCursor = new RecipeCursor(order.getProperty(), order.getDirection(),
+                    sortValue(last, order.getProperty()), last.getId()).encode();
+        }
+
+        Long totalElements = request.includeCount()
+                ? mongoTemplate.count(new Query(filter), Recipe.class)
+                : null;
+
+        return new CursorPageDTO<>(mapper.apply(recipes), nextCursor, hasNext, totalElements);
+    }
+
+    private Object sortValue(Recipe recipe, String sortField) {
+        return switch (sortField) {
+            case "name" -> recipe.getName();
+            // Stored as BSON dates, which the cursor token can carry.
+            case "createdAt" -> toDate(recipe.getCreatedAt());
+            case "modifiedAt" -> toDate(recipe.getModifiedAt());
+            default -> throw new IllegalArgumentException("Unsupported sort field: " + sortField);
+        };
+    }
+
+    // Older recipes may have no timestamps at all.
+    private static Date toDate(Instant instant) {
+        return instant != null ? Date.from(instant) : null;
     }
 
     private Sort createSort(String sortField, String direction) {
@@ -496,12 +852,15 @@ public class DefaultRecipeService implements RecipeService {
 
         switch (sortField) {
             case "name":
-                // Only name is currently implemented in the database.
                 break;
             case "created_date":
+                sortField = "createdAt";
+                break;
             case "modification_date":
+                sortField = "modifiedAt";
+                break;
             case "last_access_date":
-                // These fields will be implemented later.
+                // Access times are not tracked yet.
                 // For now, default to sorting by name.
                 sortField = "name";
                 break;
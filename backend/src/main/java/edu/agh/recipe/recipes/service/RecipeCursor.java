@@ -0,0 +1,96 @@
+package edu.agh.recipe.recipes.service;
+
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position of the last recipe returned in cursor pagination mode.
+ * It is sent to the client as an opaque token built from the sort key and the
+ * recipe id, so the next page can start right after it without skipping documents.
+ */
+record RecipeCursor(String sortField, Sort.Direction direction, Object value, String id) {
+
+    private static final String FIELD_KEY = "f";
+    private static final String DIRECTION_KEY = "d";
+    private static final String VALUE_KEY = "v";
+    private static final String ID_KEY = "id";
+
+    /**
+     * Matches recipes that come after this position in the sort order.
+     * The recipe id breaks ties between recipes with the same sort key. MongoDB
+     * sorts a missing or null key before any other value, so such recipes come
+     * first in ascending order and last in descending order.
+     */
+    Criteria toCriteria() {
+        if (value == null) {
+            return direction.isAscending()
+                    ? new Criteria().orOperator(
+                            Criteria.where(sortField).ne(null),
+                            Criteria.where(sortField).is(null).and("_id").gt(id))
+                    : Criteria.where(sortField).is(null).and("_id").lt(id);
+        }
+        if (direction.isAscending()) {
+            return new Criteria().orOperator(
+                    Criteria.where(sortField).gt(value),
+                    Criteria.where(sortField).is(value).and("_id").gt(id));
+        }
+        return new Criteria().orOperator(
+                Criteria.where(sortField).lt(value),
+                Criteria.where(sortField).is(value).and("_id").lt(id),
+                Criteria.where(sortField).is(null));
+    }
+
+    String encode() {
+        Document document = new Document(FIELD_KEY, sortField)
+                .append(DIRECTION_KEY, direction.name())
+                .append(VALUE_KEY, value)
+                .append(ID_KEY, id);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(document.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static RecipeCursor decode(String token) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            Document document = Document.parse(json);
+            String sortField = document.getString(FIELD_KEY);
+            String direction = document.getString(DIRECTION_KEY);
+            String id = document.getString(ID_KEY);
+            if (sortField == null || direction == null || id == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+            }
+            Object value = document.get(VALUE_KEY);
+            if (!isValidValue(sortField, value)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+            }
+            return new RecipeCursor(
+                    sortField,
+                    Sort.Direction.fromString(direction),
+                    value,
+                    id
+            );
+        } catch (IllegalArgumentException | JsonParseException | ClassCastException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+        }
+    }
+
+    /**
+     * Only plain values of the sort field's type are accepted, so a forged token
+     * cannot smuggle a query operator into the criteria.
+     */
+    private static boolean isValidValue(String sortField, Object value) {
+        return switch (sortField) {
+            case "name" -> value == null || value instanceof String;
+            case "createdAt", "modifiedAt" -> value == null || value instanceof Date;
+            default -> false;
+        };
+    }
+}
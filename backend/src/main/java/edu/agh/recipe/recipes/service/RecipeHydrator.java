@@ -0,0 +1,125 @@
+package edu.agh.recipe.recipes.service;
+
+import edu.agh.recipe.images.dto.ImageDTO;
+import edu.agh.recipe.images.service.ImageService;
+import edu.agh.recipe.recipes.dto.RecipeDTO;
+import edu.agh.recipe.recipes.dto.RecipeSummaryDTO;
+import edu.agh.recipe.recipes.model.Recipe;
+import edu.agh.recipe.tags.dto.TagDTO;
+import edu.agh.recipe.tags.service.TagService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Turns recipe entities into {@link RecipeDTO}s with their tags and images.
+ * A whole batch of recipes is hydrated with one tag lookup and one image
+ * lookup, instead of a pair of lookups for every recipe.
+ * Summaries only need the primary image id, which is stored on the recipe itself.
+ */
+@Component
+public class RecipeHydrator {
+
+    private final TagService tagService;
+    private final ImageService imageService;
+    private final DistributionSummary lookupsPerBatch;
+
+    public RecipeHydrator(TagService tagService, ImageService imageService, MeterRegistry meterRegistry) {
+        this.tagService = Objects.requireNonNull(tagService);
+        this.imageService = Objects.requireNonNull(imageService);
+        this.lookupsPerBatch = DistributionSummary.builder("recipes.hydration.lookups")
+                .description("Number of tag and image lookups issued to hydrate one batch of recipes")
+                .register(meterRegistry);
+    }
+
+    public Page<RecipeDTO> hydratePage(Page<Recipe> recipePage) {
+        return new PageImpl<>(hydrateAll(recipePage.getContent()), recipePage.getPageable(), recipePage.getTotalElements());
+    }
+
+    public List<RecipeDTO> hydrateAll(List<Recipe> recipes) {
+        if (recipes.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> tagIds = new LinkedHashSet<>();
+        Set<String> imageIds = new LinkedHashSet<>();
+        for (Recipe recipe : recipes) {
+            tagIds.addAll(recipe.getTagIds());
+            imageIds.addAll(recipe.getImageIds());
+        }
+
+        int lookups = 0;
+        Map<String, TagDTO> tagsById = Map.of();
+        if (!tagIds.isEmpty()) {
+            tagsById = tagService.getTagsByIds(new ArrayList<>(tagIds)).stream()
+                    .collect(Collectors.toMap(TagDTO::id, Function.identity()));
+            lookups++;
+        }
+
+        Map<String, ImageDTO> imagesById = Map.of();
+        if (!imageIds.isEmpty()) {
+            imagesById = imageService.getImagesDataByIds(new ArrayList<>(imageIds)).stream()
+                    .collect(Collectors.toMap(ImageDTO::id, Function.identity()));
+            lookups++;
+        }
+        lookupsPerBatch.record(lookups);
+
+        List<RecipeDTO> result = new ArrayList<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            result.add(RecipeDTO.fromEntity(recipe, pick(recipe.getTagIds(), tagsById), pick(recipe.getImageIds(), imagesById)));
+        }
+        return result;
+    }
+
+    public List<RecipeSummaryDTO> summarizeAll(List<Recipe> recipes) {
+        // Recipes saved before the primary image id was stored on the recipe
+        // still need their images looked up, all of them in one batch.
+        List<String> untrackedImageIds = recipes.stream()
+                .filter(recipe -> recipe.getPrimaryImageId() == null)
+                .flatMap(recipe -> recipe.getImageIds().stream())
+                .toList();
+
+        Set<String> primaryImageIds = Set.of();
+        if (!untrackedImageIds.isEmpty()) {
+            primaryImageIds = imageService.getImagesDataByIds(untrackedImageIds).stream()
+                    .filter(ImageDTO::isPrimary)
+                    .map(ImageDTO::id)
+                    .collect(Collectors.toSet());
+            lookupsPerBatch.record(1);
+        }
+
+        List<RecipeSummaryDTO> result = new ArrayList<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            String primaryImageId = recipe.getPrimaryImageId();
+            if (primaryImageId == null) {
+                primaryImageId = recipe.getImageIds().stream()
+                        .filter(primaryImageIds::contains)
+                        .findFirst()
+                        .orElse(null);
+            }
+            result.add(new RecipeSummaryDTO(recipe.getId(), recipe.getName(), primaryImageId, recipe.getTagIds()));
+        }
+        return result;
+    }
+
+    /**
+     * Selects the entries of an id-indexed lookup that belong to one recipe.
+     * Ids that are no longer present in the lookup (e.g. a deleted tag) are skipped.
+     */
+    private static <T> List<T> pick(Set<String> ids, Map<String, T> byId) {
+        List<T> values = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            T value = byId.get(id);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+}
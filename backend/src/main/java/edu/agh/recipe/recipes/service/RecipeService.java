@@ -1,7 +1,12 @@
 package edu.agh.recipe.recipes.service;
 
 import edu.agh.recipe.recipes.dto.CreateRecipeDTO;
+import edu.agh.recipe.recipes.dto.CursorPageDTO;
 import edu.agh.recipe.recipes.dto.RecipeDTO;
+import edu.agh.recipe.recipes.dto.RecipeFilter;
+import edu.agh.recipe.recipes.dto.RecipeScrollRequest;
+import edu.agh.recipe.recipes.dto.RecipeSummaryDTO;
+import edu.agh.recipe.recipes.dto.RecipeTombstoneDTO;
 import edu.agh.recipe.recipes.dto.UpdateRecipeDTO;
 import edu.agh.recipe.tags.dto.TagDTO;
 import edu.agh.recipe.tags.dto.TagReferenceDTO;
@@ -12,8 +17,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
 
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface RecipeService {
     // Core recipe operations
@@ -44,6 +52,8 @@ public interface RecipeService {
 
     // Recipe-image operations
     RecipeDTO uploadImageForRecipe(String recipeId, String description, MultipartFile image);
+    RecipeDTO uploadImageForRecipe(String recipeId, String description, String filename, String contentType, InputStream image);
+    RecipeDTO uploadImagesForRecipe(String recipeId, List<String> descriptions, List<MultipartFile> images);
     RecipeDTO removeImageFromRecipe(String id, String imageId);
     RecipeDTO setImageAsPrimary(String id, String imageId);
     RecipeDTO linkImagesToRecipe(String recipeId, List<String> imageIds);
@@ -56,4 +66,40 @@ public interface RecipeService {
         String sortField,
         String direction,
         Pageable pageable);
+
+    // Cursor (keyset) paginated variants of the listing and search operations
+    CursorPageDTO<RecipeDTO> scrollAllRecipes(RecipeScrollRequest request);
+    CursorPageDTO<RecipeDTO> scrollRecipesContainingAnyIngredients(List<String> ingredients, RecipeScrollRequest request);
+    CursorPageDTO<RecipeDTO> scrollRecipesContainingAllIngredients(List<String> ingredientNames, RecipeScrollRequest request);
+    CursorPageDTO<RecipeDTO> scrollRecipesByTag(String tagId, RecipeScrollRequest request);
+    CursorPageDTO<RecipeDTO> scrollRecipesByTagName(String tagName, RecipeScrollRequest request);
+    CursorPageDTO<RecipeDTO> scrollRecipesByAnyTags(List<String> tagIds, RecipeScrollRequest request);
+    CursorPageDTO<RecipeDTO> scrollRecipesByAllTags(List<String> tagIds, RecipeScrollRequest request);
+    CursorPageDTO<RecipeDTO> scrollAdvancedSearch(
+        String name,
+        List<String> ingredients,
+        List<String> tagIds,
+        RecipeScrollRequest request);
+
+    // Summary views of the listing and search operations, without ingredients and steps
+    Page<RecipeSummaryDTO> findRecipeSummaries(RecipeFilter filter, String sortField, String direction, Pageable pageable);
+    CursorPageDTO<RecipeSummaryDTO> scrollRecipeSummaries(RecipeFilter filter, RecipeScrollRequest request);
+
+    /**
+     * Streams all recipes ordered by name from a single database cursor, hydrating
+     * them {@code batchSize} at a time. The stream must be closed by the caller.
+     */
+    Stream<RecipeDTO> streamAllRecipes(int batchSize);
+
+    /**
+     * Streams the recipes modified after {@code from} and not later than {@code to},
+     * in modification order. The stream must be closed by the caller.
+     */
+    Stream<RecipeDTO> streamRecipesModifiedBetween(Instant from, Instant to, int batchSize);
+
+    /**
+     * Streams the recipes deleted after {@code from} and not later than {@code to}.
+     * The stream must be closed by the caller.
+     */
+    Stream<RecipeTombstoneDTO> streamRecipesDeletedBetween(Instant from, Instant to);
 }
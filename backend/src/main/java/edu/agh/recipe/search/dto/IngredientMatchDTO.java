@@ -0,0 +1,14 @@
+package edu.agh.recipe.search.dto;
+
+import java.util.List;
+
+/**
+ * Recipe found by a pantry search, with how many of its ingredients are available.
+ */
+public record IngredientMatchDTO(
+        String id,
+        String name,
+        int matchedIngredients,
+        int totalIngredients,
+        List<String> missingIngredients
+) {}
@@ -0,0 +1,6 @@
+package edu.agh.recipe.search.dto;
+
+public record RecipeSuggestionDTO(
+        String id,
+        String name
+) {}
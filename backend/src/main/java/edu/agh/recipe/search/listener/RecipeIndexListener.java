@@ -0,0 +1,85 @@
+package edu.agh.recipe.search.listener;
+
+import edu.agh.recipe.recipes.model.Recipe;
+import edu.agh.recipe.search.service.IngredientIndexService;
+import edu.agh.recipe.search.service.RecipeSuggestionService;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeDeleteEvent;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Applies recipe writes to the in-memory suggestion and ingredient indexes.
+ */
+@Component
+public class RecipeIndexListener extends AbstractMongoEventListener<Recipe> {
+
+    private final RecipeSuggestionService recipeSuggestionService;
+    private final IngredientIndexService ingredientIndexService;
+    private final MongoTemplate mongoTemplate;
+    // Ids resolved before a delete by filter, keyed by the query document passed to both delete events.
+    private final Map<Document, List<String>> idsByDeleteQuery = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public RecipeIndexListener(RecipeSuggestionService recipeSuggestionService,
+                               IngredientIndexService ingredientIndexService,
+                               MongoTemplate mongoTemplate) {
+        this.recipeSuggestionService = Objects.requireNonNull(recipeSuggestionService);
+        this.ingredientIndexService = Objects.requireNonNull(ingredientIndexService);
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Recipe> event) {
+        Recipe recipe = event.getSource();
+        recipeSuggestionService.addOrUpdate(recipe.getId(), recipe.getName());
+        ingredientIndexService.addOrUpdate(recipe.getId(), recipe.getName(), recipe.getIngredients());
+    }
+
+    /**
+     * The recipes deleted by a filter cannot be told from the query afterwards,
+     * so their ids are looked up with the same filter just before the delete.
+     */
+    @Override
+    public void onBeforeDelete(BeforeDeleteEvent<Recipe> event) {
+        Document deleteQuery = event.getSource();
+        if (!deleteQuery.containsKey("_id")) {
+            Query query = new BasicQuery(deleteQuery);
+            query.fields().include("_id");
+            List<String> ids = mongoTemplate.find(query, Recipe.class).stream()
+                    .map(Recipe::getId)
+                    .toList();
+            idsByDeleteQuery.put(deleteQuery, ids);
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Recipe> event) {
+        Document deleteQuery = event.getSource();
+        Collection<String> deletedIds = deleteQuery.containsKey("_id")
+                ? deletedIds(deleteQuery)
+                : idsByDeleteQuery.remove(deleteQuery);
+        if (deletedIds != null) {
+            recipeSuggestionService.remove(deletedIds);
+            ingredientIndexService.remove(deletedIds);
+        }
+    }
+
+    /**
+     * Extracts the recipe ids from the delete query, which is either
+     * {@code {_id: id}} or {@code {_id: {$in: [ids]}}}.
+     */
+    private static Collection<String> deletedIds(Document deleteQuery) {
+        Object id = deleteQuery.get("_id");
+        if (id instanceof Document idQuery && idQuery.get("$in") instanceof Collection<?> ids) {
+            return ids.stream().map(Object::toString).toList();
+        }
+        return List.of(id.toString());
+    }
+}
@@ -0,0 +1,23 @@
+package edu.agh.recipe.search.listener;
+
+import edu.agh.recipe.recipes.model.Recipe;
+import edu.agh.recipe.search.text.SearchTextNormalizer;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the indexed search fields of a recipe in sync with its name
+ * every time the recipe is saved, whichever code path saves it.
+ */
+@Component
+public class RecipeSearchFieldsListener extends AbstractMongoEventListener<Recipe> {
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Recipe> event) {
+        Recipe recipe = event.getSource();
+        String searchName = SearchTextNormalizer.normalize(recipe.getName());
+        recipe.setSearchName(searchName);
+        recipe.setNameNgrams(SearchTextNormalizer.ngrams(searchName));
+    }
+}
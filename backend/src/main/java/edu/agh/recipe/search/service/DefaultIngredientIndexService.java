@@ -0,0 +1,276 @@
+package edu.agh.recipe.search.service;
+
+import edu.agh.recipe.recipes.model.Recipe;
+import edu.agh.recipe.recipes.model.RecipeIngredient;
+import edu.agh.recipe.search.dto.IngredientMatchDTO;
+import edu.agh.recipe.search.text.SearchTextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Every indexed recipe gets a small integer slot, and every ingredient name maps
+ * to a sorted array of the slots of the recipes that use it, so memory grows with
+ * the number of ingredient uses rather than with the number of recipes per name.
+ * A pantry search merges the arrays of the given ingredients and counts, for every
+ * slot, how many of them contain it. Slots of removed recipes are reused by new ones.
+ */
+@Service
+public class DefaultIngredientIndexService implements IngredientIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultIngredientIndexService.class);
+
+    private static final Comparator<IngredientMatchDTO> BY_COVERAGE = Comparator
+            .comparingDouble((IngredientMatchDTO match) -> -coverage(match))
+            .thenComparing(Comparator.comparingInt(IngredientMatchDTO::matchedIngredients).reversed())
+            .thenComparing(match -> Objects.requireNonNullElse(match.name(), ""));
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Index index = new Index();
+    // Updates made while a rebuild streams the recipes, replayed on the rebuilt index; null otherwise.
+    private List<Consumer<Index>> updatesDuringRebuild;
+    private final Object rebuildLock = new Object();
+
+    public DefaultIngredientIndexService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+    }
+
+    @Override
+    public Page<IngredientMatchDTO> findByIngredients(List<String> ingredients, int minMatched, Pageable pageable) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String ingredient : ingredients) {
+            String key = SearchTextNormalizer.normalize(ingredient);
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        int requiredMatches = Math.max(1, Math.min(minMatched, keys.size()));
+        if (keys.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+
+        List<IngredientMatchDTO> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<Posting> postings = keys.stream()
+                    .map(index.postings::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+
+            // Merges the sorted arrays, visiting every slot once with the number of arrays holding it.
+            int[] positions = new int[postings.size()];
+            PriorityQueue<Integer> cursors = new PriorityQueue<>(
+                    Comparator.comparingInt(i -> postings.get(i).slots[positions[i]]));
+            for (int i = 0; i < postings.size(); i++) {
+                cursors.add(i);
+            }
+            while (!cursors.isEmpty()) {
+                int slot = postings.get(cursors.peek()).slots[positions[cursors.peek()]];
+                int matched = 0;
+                while (!cursors.isEmpty() && postings.get(cursors.peek()).slots[positions[cursors.peek()]] == slot) {
+                    int i = cursors.poll();
+                    matched++;
+                    if (++positions[i] < postings.get(i).size) {
+                        cursors.add(i);
+                    }
+                }
+                if (matched >= requiredMatches) {
+                    matches.add(index.slots.get(slot).toMatch(keys, matched));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(BY_COVERAGE);
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+    }
+
+    @Override
+    public void addOrUpdate(String recipeId, String name, List<RecipeIngredient> ingredients) {
+        List<RecipeIngredient> indexedIngredients = List.copyOf(ingredients);
+        apply(updated -> updated.put(recipeId, name, indexedIngredients));
+    }
+
+    @Override
+    public void remove(Collection<String> recipeIds) {
+        List<String> removedIds = List.copyOf(recipeIds);
+        apply(updated -> removedIds.forEach(updated::remove));
+    }
+
+    private void apply(Consumer<Index> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(index);
+            if (updatesDuringRebuild != null) {
+                updatesDuringRebuild.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Query query = new Query();
+        query.fields().include("name", "ingredients.ingredientName");
+
+        // The new index is built on the side, so searches keep working while it loads.
+        // Updates that arrive meanwhile go to the current index and are replayed on the
+        // new one before it is swapped in; replaying a change already read is harmless.
+        synchronized (rebuildLock) {
+            Index rebuilt = new Index();
+            setUpdatesDuringRebuild(new ArrayList<>());
+            try (Stream<Recipe> recipes = mongoTemplate.stream(query, Recipe.class)) {
+                recipes.forEach(recipe -> rebuilt.put(recipe.getId(), recipe.getName(), recipe.getIngredients()));
+            } catch (RuntimeException e) {
+                setUpdatesDuringRebuild(null);
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                updatesDuringRebuild.forEach(update -> update.accept(rebuilt));
+                updatesDuringRebuild = null;
+                index = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Loaded {} recipes into the ingredient index", rebuilt.slotsById.size());
+        }
+    }
+
+    private void setUpdatesDuringRebuild(List<Consumer<Index>> updates) {
+        lock.writeLock().lock();
+        try {
+            updatesDuringRebuild = updates;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static double coverage(IngredientMatchDTO match) {
+        return match.totalIngredients() == 0 ? 0 : (double) match.matchedIngredients() / match.totalIngredients();
+    }
+
+    /**
+     * Indexed recipe. The ingredient names are kept both as given and normalized,
+     * in the same order, to report the missing ones.
+     */
+    private record Entry(String recipeId, String name, List<String> ingredientNames, List<String> keys) {
+
+        IngredientMatchDTO toMatch(Set<String> availableKeys, int matched) {
+            List<String> missing = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (!availableKeys.contains(keys.get(i))) {
+                    missing.add(ingredientNames.get(i));
+                }
+            }
+            return new IngredientMatchDTO(recipeId, name, matched, keys.size(), missing);
+        }
+    }
+
+    private static final class Index {
+        private final Map<String, Posting> postings = new HashMap<>();
+        private final List<Entry> slots = new ArrayList<>();
+        private final Map<String, Integer> slotsById = new HashMap<>();
+        private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+        void put(String recipeId, String name, List<RecipeIngredient> ingredients) {
+            remove(recipeId);
+
+            // A recipe can list the same ingredient more than once, e.g. for the dough and the filling.
+            Map<String, String> namesByKey = new LinkedHashMap<>();
+            for (RecipeIngredient ingredient : ingredients) {
+                String key = SearchTextNormalizer.normalize(ingredient.ingredientName());
+                if (!key.isEmpty()) {
+                    namesByKey.putIfAbsent(key, ingredient.ingredientName());
+                }
+            }
+
+            Integer freeSlot = freeSlots.poll();
+            int slot = freeSlot != null ? freeSlot : slots.size();
+            Entry entry = new Entry(recipeId, name, List.copyOf(namesByKey.values()), List.copyOf(namesByKey.keySet()));
+            if (slot == slots.size()) {
+                slots.add(entry);
+            } else {
+                slots.set(slot, entry);
+            }
+            slotsById.put(recipeId, slot);
+
+            for (String key : entry.keys()) {
+                postings.computeIfAbsent(key, k -> new Posting()).add(slot);
+            }
+        }
+
+        void remove(String recipeId) {
+            Integer slot = slotsById.remove(recipeId);
+            if (slot == null) {
+                return;
+            }
+
+            for (String key : slots.get(slot).keys()) {
+                Posting posting = postings.get(key);
+                posting.remove(slot);
+                if (posting.size == 0) {
+                    postings.remove(key);
+                }
+            }
+            slots.set(slot, null);
+            freeSlots.push(slot);
+        }
+    }
+
+    /**
+     * Sorted slots of the recipes using one ingredient. Most ingredient names are used
+     * by a few recipes, so the array starts with a single element and doubles as needed.
+     */
+    private static final class Posting {
+        private int[] slots = new int[1];
+        private int size;
+
+        void add(int slot) {
+            int position = Arrays.binarySearch(slots, 0, size, slot);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, position, slots, position + 1, size - position);
+            slots[position] = slot;
+            size++;
+        }
+
+        void remove(int slot) {
+            int position = Arrays.binarySearch(slots, 0, size, slot);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+            size--;
+            if (size > 0 && size <= slots.length / 4) {
+                slots = Arrays.copyOf(slots, slots.length / 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package edu.agh.recipe.search.service;
+
+import edu.agh.recipe.recipes.model.Recipe;
+import edu.agh.recipe.search.text.SearchTextNormalizer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators.Switch.CaseOperator;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class DefaultRecipeSearchService implements RecipeSearchService {
+
+    private static final String SEARCH_NAME_FIELD = "searchName";
+    private static final String NAME_NGRAMS_FIELD = "nameNgrams";
+    private static final String RANK_FIELD = "rank";
+    private static final String NAME_LENGTH_FIELD = "nameLength";
+
+    private final MongoTemplate mongoTemplate;
+
+    public DefaultRecipeSearchService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+    }
+
+    @Override
+    public Criteria nameContains(String query) {
+        String normalizedQuery = SearchTextNormalizer.normalize(query);
+        if (normalizedQuery.isEmpty()) {
+            return new Criteria();
+        }
+
+        if (normalizedQuery.length() < SearchTextNormalizer.NGRAM_LENGTH) {
+            // Too short for n-grams, match the beginning of any word instead.
+            return Criteria.where(SEARCH_NAME_FIELD).regex("(^| )" + normalizedQuery);
+        }
+
+        // The n-gram index narrows down the candidates, the regular expression
+        // drops the ones that contain all n-grams but not in the right order.
+        return Criteria.where(NAME_NGRAMS_FIELD).all(SearchTextNormalizer.ngrams(normalizedQuery))
+                .and(SEARCH_NAME_FIELD).regex(normalizedQuery);
+    }
+
+    @Override
+    public Criteria nameStartsWith(String prefix) {
+        // An anchored regular expression on the indexed field is answered with an index range scan.
+        return Criteria.where(SEARCH_NAME_FIELD).regex("^" + SearchTextNormalizer.normalize(prefix));
+    }
+
+    @Override
+    public Page<Recipe> findByRelevance(String query, Criteria filter, Pageable pageable) {
+        String normalizedQuery = SearchTextNormalizer.normalize(query);
+
+        // MongoDB ranks the candidates and keeps only the best ones up to the requested page
+        // while sorting, so neither the server nor the application holds every match.
+        Aggregation ranking = Aggregation.newAggregation(
+                Aggregation.match(filter),
+                Aggregation.project(SEARCH_NAME_FIELD),
+                Aggregation.addFields()
+                        .addField(RANK_FIELD).withValue(matchRank(normalizedQuery))
+                        .addField(NAME_LENGTH_FIELD).withValue(StringOperators.valueOf(searchName()).lengthCP())
+                        .build(),
+                Aggregation.sort(Sort.by(RANK_FIELD, NAME_LENGTH_FIELD, SEARCH_NAME_FIELD, "_id")),
+                Aggregation.skip(pageable.getOffset()),
+                Aggregation.limit(pageable.getPageSize()),
+                Aggregation.project("_id")
+        );
+        List<String> pageIds = mongoTemplate.aggregate(ranking, Recipe.class, Recipe.class).getMappedResults().stream()
+                .map(Recipe::getId)
+                .toList();
+
+        Map<String, Recipe> recipesById = mongoTemplate.find(new Query(Criteria.where("_id").in(pageIds)), Recipe.class)
+                .stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+        List<Recipe> content = pageIds.stream()
+                .map(recipesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(new Query(filter), Recipe.class));
+    }
+
+    private AggregationExpression searchName() {
+        return ConditionalOperators.ifNull(SEARCH_NAME_FIELD).then("");
+    }
+
+    /**
+     * Lower rank means a better match: the whole name, a name prefix, a word prefix,
+     * then any other substring.
+     */
+    private AggregationExpression matchRank(String normalizedQuery) {
+        return ConditionalOperators.switchCases(
+                CaseOperator.when(ComparisonOperators.valueOf(searchName()).equalToValue(normalizedQuery))
+                        .then(0),
+                CaseOperator.when(ComparisonOperators.valueOf(StringOperators.valueOf(searchName()).indexOf(normalizedQuery))
+                                .equalToValue(0))
+                        .then(1),
+                CaseOperator.when(ComparisonOperators.valueOf(StringOperators.valueOf(searchName()).indexOf(" " + normalizedQuery))
+                                .greaterThanEqualToValue(0))
+                        .then(2)
+        ).defaultTo(3);
+    }
+}
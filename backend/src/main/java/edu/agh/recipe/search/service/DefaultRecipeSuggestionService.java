@@ -0,0 +1,125 @@
+package edu.agh.recipe.search.service;
+
+import edu.agh.recipe.recipes.model.Recipe;
+import edu.agh.recipe.search.dto.RecipeSuggestionDTO;
+import edu.agh.recipe.search.text.SearchTextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the suggestions in a sorted map keyed by normalized name, so a prefix
+ * query is a range lookup: O(log n) to find the first match plus the number of
+ * returned suggestions.
+ */
+@Service
+public class DefaultRecipeSuggestionService implements RecipeSuggestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultRecipeSuggestionService.class);
+
+    // Separates the name from the id in the map keys, so recipes with the same name do not collide.
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final MongoTemplate mongoTemplate;
+
+    private volatile Index index = new Index();
+    // Updates made while a rebuild streams the recipes, replayed on the rebuilt index; null otherwise.
+    private List<Consumer<Index>> updatesDuringRebuild;
+    private final Object rebuildLock = new Object();
+
+    public DefaultRecipeSuggestionService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+    }
+
+    @Override
+    public List<RecipeSuggestionDTO> suggest(String prefix, int limit) {
+        String normalizedPrefix = SearchTextNormalizer.normalize(prefix);
+        if (normalizedPrefix.isEmpty()) {
+            return List.of();
+        }
+
+        return index.entries.subMap(normalizedPrefix, true, normalizedPrefix + Character.MAX_VALUE, false)
+                .values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public synchronized void addOrUpdate(String recipeId, String name) {
+        apply(updated -> updated.put(recipeId, name));
+    }
+
+    @Override
+    public synchronized void remove(Collection<String> recipeIds) {
+        List<String> removedIds = List.copyOf(recipeIds);
+        apply(updated -> removedIds.forEach(updated::remove));
+    }
+
+    private void apply(Consumer<Index> update) {
+        update.accept(index);
+        if (updatesDuringRebuild != null) {
+            updatesDuringRebuild.add(update);
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Query query = new Query();
+        query.fields().include("name");
+
+        // The new index is built on the side, so suggestions keep working while it loads.
+        // Updates that arrive meanwhile go to the current index and are replayed on the
+        // new one before it is swapped in; replaying a change already read is harmless.
+        synchronized (rebuildLock) {
+            Index rebuilt = new Index();
+            synchronized (this) {
+                updatesDuringRebuild = new ArrayList<>();
+            }
+            try (Stream<Recipe> recipes = mongoTemplate.stream(query, Recipe.class)) {
+                recipes.forEach(recipe -> rebuilt.put(recipe.getId(), recipe.getName()));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    updatesDuringRebuild = null;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                updatesDuringRebuild.forEach(update -> update.accept(rebuilt));
+                updatesDuringRebuild = null;
+                index = rebuilt;
+            }
+            logger.info("Loaded {} recipe names into the suggestion index", rebuilt.keysById.size());
+        }
+    }
+
+    private static final class Index {
+        private final ConcurrentSkipListMap<String, RecipeSuggestionDTO> entries = new ConcurrentSkipListMap<>();
+        private final Map<String, String> keysById = new ConcurrentHashMap<>();
+
+        void put(String recipeId, String name) {
+            remove(recipeId);
+            String key = SearchTextNormalizer.normalize(name) + KEY_SEPARATOR + recipeId;
+            entries.put(key, new RecipeSuggestionDTO(recipeId, name));
+            keysById.put(recipeId, key);
+        }
+
+        void remove(String recipeId) {
+            String key = keysById.remove(recipeId);
+            if (key != null) {
+                entries.remove(key);
+            }
+        }
+    }
+}
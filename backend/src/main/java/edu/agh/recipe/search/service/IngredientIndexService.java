@@ -0,0 +1,33 @@
+package edu.agh.recipe.search.service;
+
+import edu.agh.recipe.recipes.model.RecipeIngredient;
+import edu.agh.recipe.search.dto.IngredientMatchDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * In-memory inverted index from ingredient names to recipes, used for pantry
+ * searches. Ingredient names are compared after normalization, so case and
+ * Polish diacritics are ignored. The index is updated as recipes are saved and deleted.
+ */
+public interface IngredientIndexService {
+
+    /**
+     * Finds recipes that contain at least {@code minMatched} of the given ingredients.
+     * Passing 1 matches any of them, passing their number matches all of them.
+     * Recipes are ordered by the share of their ingredients that are available.
+     */
+    Page<IngredientMatchDTO> findByIngredients(List<String> ingredients, int minMatched, Pageable pageable);
+
+    void addOrUpdate(String recipeId, String name, List<RecipeIngredient> ingredients);
+
+    void remove(Collection<String> recipeIds);
+
+    /**
+     * Reloads the whole index from the database.
+     */
+    void rebuild();
+}
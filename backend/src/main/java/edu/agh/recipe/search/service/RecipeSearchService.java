@@ -0,0 +1,34 @@
+package edu.agh.recipe.search.service;
+
+import edu.agh.recipe.recipes.model.Recipe;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Name search over the normalized recipe name and its n-gram index.
+ * Queries are normalized the same way as the indexed names, so they are
+ * case-insensitive and ignore Polish diacritics.
+ */
+public interface RecipeSearchService {
+
+    /**
+     * Criteria matching recipes whose name contains the query.
+     */
+    Criteria nameContains(String query);
+
+    /**
+     * Criteria matching recipes whose name starts with the prefix.
+     */
+    Criteria nameStartsWith(String prefix);
+
+    /**
+     * Finds recipes matching the filter, ordered by how well their names match the query:
+     * exact matches first, then name prefixes, word prefixes and other substrings.
+     *
+     * @param query name query the relevance is computed for
+     * @param filter criteria selecting the candidate recipes, usually including {@link #nameContains(String)}
+     * @param pageable page to return, its sort is ignored
+     */
+    Page<Recipe> findByRelevance(String query, Criteria filter, Pageable pageable);
+}
@@ -0,0 +1,28 @@
+package edu.agh.recipe.search.service;
+
+import edu.agh.recipe.search.dto.RecipeSuggestionDTO;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * In-memory typeahead over recipe names. Suggestions are answered without
+ * touching the database; the index is updated as recipes are saved and deleted.
+ */
+public interface RecipeSuggestionService {
+
+    /**
+     * Returns up to {@code limit} recipes whose normalized name starts with the
+     * normalized prefix, ordered by name.
+     */
+    List<RecipeSuggestionDTO> suggest(String prefix, int limit);
+
+    void addOrUpdate(String recipeId, String name);
+
+    void remove(Collection<String> recipeIds);
+
+    /**
+     * Reloads the whole index from the database.
+     */
+    void rebuild();
+}
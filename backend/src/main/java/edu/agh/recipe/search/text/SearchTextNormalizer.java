@@ -0,0 +1,51 @@
+package edu.agh.recipe.search.text;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Brings text to the form stored in the search index: lowercase, without
+ * diacritics and with every run of non-alphanumeric characters replaced by
+ * a single space. For example "Żurek z białą kiełbasą" becomes
+ * "zurek z biala kielbasa".
+ *
+ * <p>Normalized text only contains letters, digits and single spaces, so it
+ * can be embedded in a regular expression without escaping.</p>
+ */
+public final class SearchTextNormalizer {
+
+    public static final int NGRAM_LENGTH = 3;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private SearchTextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        // 'ł' is a separate letter rather than 'l' with a combining mark,
+        // so Unicode decomposition alone does not fold it.
+        String lowerCase = text.toLowerCase(Locale.ROOT).replace('ł', 'l');
+        String withoutDiacritics = DIACRITICS.matcher(Normalizer.normalize(lowerCase, Normalizer.Form.NFD))
+                .replaceAll("");
+        return NON_ALPHANUMERIC.matcher(withoutDiacritics).replaceAll(" ").trim();
+    }
+
+    /**
+     * Returns all substrings of length {@link #NGRAM_LENGTH} of already normalized text.
+     */
+    public static Set<String> ngrams(String normalizedText) {
+        Set<String> ngrams = new LinkedHashSet<>();
+        for (int i = 0; i + NGRAM_LENGTH <= normalizedText.length(); i++) {
+            ngrams.add(normalizedText.substring(i, i + NGRAM_LENGTH));
+        }
+        return ngrams;
+    }
+}
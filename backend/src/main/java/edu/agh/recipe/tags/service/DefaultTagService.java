@@ -5,26 +5,44 @@ import edu.agh.recipe.tags.dto.TagDTO;
 import edu.agh.recipe.tags.model.Tag;
 import edu.agh.recipe.tags.repository.TagRepository;
 import jakarta.validation.Valid;
+import org.bson.Document;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 @Service
 @Validated
 public class DefaultTagService implements TagService {
 
+    private static final String USAGE_COUNT_FIELD = "usageCount";
+
     private final TagRepository tagRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TagCache tagCache;
 
-    public DefaultTagService(TagRepository tagRepository) {
+    public DefaultTagService(TagRepository tagRepository, MongoTemplate mongoTemplate, TagCache tagCache) {
         this.tagRepository = Objects.requireNonNull(tagRepository);
+        this.mongoTemplate = Objects.requireNonNull(mongoTemplate);
+        this.tagCache = Objects.requireNonNull(tagCache);
     }
 
     @Override
@@ -34,28 +52,38 @@ public class DefaultTagService implements TagService {
 
     @Override
     public TagDTO getTagById(String id) {
-        Tag tag = tagRepository.findById(id)
+        long generation = tagCache.generation();
+        return tagCache.getById(id)
+                .or(() -> tagRepository.findById(id).map(tag -> toCachedDTO(tag, generation)))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Tag not found."));
-        return toDTO(tag);
     }
 
     @Override
     public List<TagDTO> getTagsByIds(List<String> ids) {
-        return tagRepository.findAllById(ids).stream()
-                .map(this::toDTO)
-                .toList();
+        long generation = tagCache.generation();
+        List<TagDTO> tags = new ArrayList<>(ids.size());
+        List<String> missingIds = new ArrayList<>();
+        for (String id : ids) {
+            tagCache.getById(id).ifPresentOrElse(tags::add, () -> missingIds.add(id));
+        }
+
+        // Only the tags that are not cached are fetched, all in one query.
+        if (!missingIds.isEmpty()) {
+            tagRepository.findAllById(missingIds)
+                    .forEach(tag -> tags.add(toCachedDTO(tag, generation)));
+        }
+        return tags;
     }
 
     @Override
     public TagDTO getTagByName(String name) {
-        Tag tag = tagRepository.findByName(name)
+        return findTagByName(name)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Tag not found."));
-        return toDTO(tag);
     }
 
     @Override
     public boolean existsByTagName(String name) {
-        return tagRepository.existsByName(name);
+        return findTagByName(name).isPresent();
     }
 
     @Override
@@ -64,9 +92,10 @@ public class DefaultTagService implements TagService {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Tag with this name already exists.");
         }
 
+        long generation = tagCache.generation();
         Tag tag = toEntity(createTagDTO);
         Tag savedTag = tagRepository.save(tag);
-        return toDTO(savedTag);
+        return toCachedDTO(savedTag, generation);
     }
 
     @Override
@@ -79,12 +108,24 @@ public class DefaultTagService implements TagService {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Tag with this name already exists.");
         }
 
-        existingTag.setName(updateTagDTO.name());
-        existingTag.setColor(updateTagDTO.color());
-        existingTag.setDescription(updateTagDTO.description());
-        existingTag.setCategory(updateTagDTO.category());
-
-        return toDTO(tagRepository.save(existingTag));
+        // Only the edited fields are written, so usage count changes made since the
+        // tag was read are kept.
+        long generation = tagCache.generation();
+        Tag updatedTag = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id)),
+                new Update().set("name", updateTagDTO.name())
+                        .set("color", updateTagDTO.color())
+                        .set("description", updateTagDTO.description())
+                        .set("category", updateTagDTO.category()),
+                FindAndModifyOptions.options().returnNew(true),
+                Tag.class
+        );
+        if (updatedTag == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Tag not found.");
+        }
+        TagDTO updatedDTO = toDTO(updatedTag);
+        tagCache.update(updatedDTO, generation);
+        return updatedDTO;
     }
 
     @Override
@@ -92,6 +133,7 @@ public class DefaultTagService implements TagService {
         if (tagRepository.existsById(id)) {
             tagRepository.deleteById(id);
         }
+        tagCache.evict(id);
     }
 
     @Override
@@ -115,24 +157,86 @@ public class DefaultTagService implements TagService {
 
     @Override
     public void incrementUsageCount(String tagId) {
-        Tag tag = tagRepository.findById(tagId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Tag not found."));
+        long generation = tagCache.generation();
+        Tag updatedTag = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(tagId)),
+                new Update().inc(USAGE_COUNT_FIELD, 1),
+                FindAndModifyOptions.options().returnNew(true),
+                Tag.class
+        );
 
-        tag.setUsageCount(tag.getUsageCount() + 1);
-        tagRepository.save(tag);
+        if (updatedTag == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Tag not found.");
+        }
+        tagCache.update(toDTO(updatedTag), generation);
     }
 
     @Override
     public void decrementUsageCount(String tagId) {
-        Tag tag = tagRepository.findById(tagId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Tag not found."));
+        // The usage count condition keeps the counter from dropping below zero.
+        long generation = tagCache.generation();
+        Tag updatedTag = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(tagId).and(USAGE_COUNT_FIELD).gt(0)),
+                new Update().inc(USAGE_COUNT_FIELD, -1),
+                FindAndModifyOptions.options().returnNew(true),
+                Tag.class
+        );
 
-        if (tag.getUsageCount() > 0) {
-            tag.setUsageCount(tag.getUsageCount() - 1);
-            tagRepository.save(tag);
+        if (updatedTag != null) {
+            tagCache.update(toDTO(updatedTag), generation);
+        } else if (!tagRepository.existsById(tagId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Tag not found.");
         }
     }
 
+    /**
+     * Applies all usage count changes in a single bulk write, one pipeline update per
+     * tag. Counters that would become negative are clamped to zero in the same update
+     * and ids of tags that no longer exist are ignored.
+     */
+    @Override
+    public void updateUsageCounts(Map<String, Integer> deltas) {
+        long generation = tagCache.generation();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Tag.class);
+        boolean hasUpdates = false;
+
+        for (Map.Entry<String, Integer> entry : deltas.entrySet()) {
+            int delta = entry.getValue();
+            if (delta == 0) {
+                continue;
+            }
+
+            bulkOperations.updateOne(
+                    Query.query(Criteria.where("_id").is(entry.getKey())),
+                    usageCountUpdate(delta)
+            );
+            hasUpdates = true;
+        }
+
+        if (hasUpdates) {
+            bulkOperations.execute();
+            // The new counter values are not returned by the bulk write, so the cached
+            // tags are adjusted by the same deltas.
+            deltas.forEach((tagId, delta) -> {
+                if (delta != 0) {
+                    tagCache.applyUsageDelta(tagId, delta, generation);
+                }
+            });
+        }
+    }
+
+    /**
+     * {@code $set: {usageCount: {$max: [0, {$add: [{$ifNull: ["$usageCount", 0]}, delta]}]}}}
+     */
+    private static AggregationUpdate usageCountUpdate(int delta) {
+        Document usageCount = new Document("$max", List.of(
+                0,
+                new Document("$add", List.of(new Document("$ifNull", List.of("$" + USAGE_COUNT_FIELD, 0)), delta))
+        ));
+        AggregationOperation setUsageCount = context -> new Document("$set", new Document(USAGE_COUNT_FIELD, usageCount));
+        return AggregationUpdate.from(List.of(setUsageCount));
+    }
+
     @Override
     public List<TagDTO> getPopularTags(int limit) {
         Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "usageCount"));
@@ -141,6 +245,22 @@ public class DefaultTagService implements TagService {
                 .toList();
     }
 
+    private Optional<TagDTO> findTagByName(String name) {
+        long generation = tagCache.generation();
+        return tagCache.getByName(name)
+                .or(() -> tagRepository.findByName(name).map(tag -> toCachedDTO(tag, generation)));
+    }
+
+    /**
+     * Converts the tag to a DTO and stores it in the tag cache, unless the tag was
+     * changed since the generation was taken, before the tag was read.
+     */
+    private TagDTO toCachedDTO(Tag tag, long generation) {
+        TagDTO dto = toDTO(tag);
+        tagCache.putIfUnchanged(dto, generation);
+        return dto;
+    }
+
     private TagDTO toDTO(Tag tag) {
         return new TagDTO(
                 tag.getId(),
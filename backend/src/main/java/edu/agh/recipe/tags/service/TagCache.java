@@ -0,0 +1,179 @@
+package edu.agh.recipe.tags.service;
+
+import edu.agh.recipe.tags.dto.TagDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Bounded in-memory copy of the tag catalog, indexed by tag id and by tag name.
+ * When the cache is full, the least recently used tag is evicted.
+ *
+ * <p>The cache is kept up to date by {@link DefaultTagService}, which writes every
+ * changed tag through. Every change is stamped with a new generation, and a tag is
+ * stored only if that tag was not changed since the generation taken before it was
+ * read or written, so a request that raced with another change cannot put old values
+ * back; the tag is evicted instead. Changes to other tags do not affect it. Hit, miss
+ * and eviction counts are published as {@code cache.gets} and {@code cache.evictions}
+ * meters tagged with {@code cache=tags}.</p>
+ */
+@Component
+public class TagCache {
+
+    private static final String CACHE_NAME = "tags";
+
+    private final int maxSize;
+    private final LinkedHashMap<String, TagDTO> tagsById;
+    private final Map<String, String> idsByName = new HashMap<>();
+    // Generation of the last change of each recently changed tag, oldest change first.
+    private final LinkedHashMap<String, Long> changeGenerations = new LinkedHashMap<>();
+
+    private long generation;
+    // Newest change whose stamp was dropped from the bounded map above.
+    private long forgottenChangeGeneration;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public TagCache(@Value("${recipe.tags.cache.max-size:1000}") int maxSize, MeterRegistry meterRegistry) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Tag cache size must be positive.");
+        }
+        this.maxSize = maxSize;
+        // Access order makes the eldest entry the least recently used one.
+        this.tagsById = new LinkedHashMap<>(16, 0.75f, true);
+
+        FunctionCounter.builder("cache.gets", this, TagCache::getHitCount)
+                .tags("cache", CACHE_NAME, "result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", this, TagCache::getMissCount)
+                .tags("cache", CACHE_NAME, "result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", this, TagCache::getEvictionCount)
+                .tags("cache", CACHE_NAME)
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, TagCache::size)
+                .tags("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    public synchronized Optional<TagDTO> getById(String id) {
+        return record(tagsById.get(id));
+    }
+
+    public synchronized Optional<TagDTO> getByName(String name) {
+        String id = idsByName.get(name);
+        return record(id != null ? tagsById.get(id) : null);
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a tag read from the database if the tag was not changed since the
+     * generation was taken.
+     */
+    public synchronized void putIfUnchanged(TagDTO tag, long generation) {
+        if (isUnchangedSince(tag.id(), generation)) {
+            put(tag);
+        }
+    }
+
+    /**
+     * Stores a tag just written to the database. If another change of the tag raced
+     * with the write, the order of the two is unknown and the tag is evicted.
+     */
+    public synchronized void update(TagDTO tag, long generation) {
+        if (isUnchangedSince(tag.id(), generation)) {
+            stampChange(tag.id());
+            put(tag);
+        } else {
+            evict(tag.id());
+        }
+    }
+
+    /**
+     * Applies a usage count change written to the database to the cached tag, or
+     * evicts the tag if another change of it raced with the write.
+     */
+    public synchronized void applyUsageDelta(String id, int delta, long generation) {
+        TagDTO cached = tagsById.get(id);
+        if (cached == null || !isUnchangedSince(id, generation)) {
+            evict(id);
+            return;
+        }
+        stampChange(id);
+        // Clamped at zero, like the database update.
+        put(new TagDTO(cached.id(), cached.name(), cached.color(), cached.description(), cached.category(),
+                Math.max(0, cached.usageCount() + delta)));
+    }
+
+    private void put(TagDTO tag) {
+        TagDTO previous = tagsById.put(tag.id(), tag);
+        if (previous != null && !previous.name().equals(tag.name())) {
+            idsByName.remove(previous.name());
+        }
+        idsByName.put(tag.name(), tag.id());
+
+        if (tagsById.size() > maxSize) {
+            Iterator<TagDTO> eldest = tagsById.values().iterator();
+            idsByName.remove(eldest.next().name());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void evict(String id) {
+        stampChange(id);
+        TagDTO removed = tagsById.remove(id);
+        if (removed != null) {
+            idsByName.remove(removed.name());
+        }
+    }
+
+    private boolean isUnchangedSince(String id, long generation) {
+        return forgottenChangeGeneration <= generation
+                && changeGenerations.getOrDefault(id, Long.MIN_VALUE) <= generation;
+    }
+
+    private void stampChange(String id) {
+        generation++;
+        changeGenerations.remove(id);
+        changeGenerations.put(id, generation);
+        if (changeGenerations.size() > maxSize) {
+            Iterator<Long> eldest = changeGenerations.values().iterator();
+            forgottenChangeGeneration = eldest.next();
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return tagsById.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    private Optional<TagDTO> record(TagDTO tag) {
+        if (tag != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return Optional.ofNullable(tag);
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 
 public interface TagService {
     Page<TagDTO> getAllTags(Pageable pageable);
@@ -21,6 +22,7 @@ public interface TagService {
     Page<TagDTO> getTagsByCategory(String category, Pageable pageable);
     void incrementUsageCount(String tagId);
     void decrementUsageCount(String tagId);
+    void updateUsageCounts(Map<String, Integer> deltas);
     List<TagDTO> getPopularTags(int limit);
     List<TagDTO> getTagsByIds(List<String> ids);
 }
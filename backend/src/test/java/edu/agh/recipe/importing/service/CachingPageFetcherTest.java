@@ -0,0 +1,140 @@
+package edu.agh.recipe.importing.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.agh.recipe.importing.model.FetchedPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fetches pages from a local HTTP server and replays them from the cache directory
+ * with a fetcher in offline mode, as imports are replayed without network access.
+ */
+class CachingPageFetcherTest {
+
+    private static final String PAGE = "<html><head><meta charset=\"utf-8\"></head><body><h1>Żurek</h1></body></html>";
+
+    @TempDir
+    Path cacheDirectory;
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/recipe", exchange -> respond(exchange, null));
+        server.createContext("/no-store", exchange -> respond(exchange, "no-store"));
+        server.createContext("/private", exchange -> respond(exchange, "private, max-age=600"));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void replaysCachedPageOffline() throws IOException {
+        FetchedPage fetched = onlineFetcher().fetch(url("/recipe"));
+
+        FetchedPage replayed = offlineFetcher().fetch(url("/recipe"));
+
+        // The offline fetcher never contacted the server.
+        assertEquals(1, requests.get());
+        assertEquals(fetched.url(), replayed.url());
+        assertEquals(fetched.charset(), replayed.charset());
+        assertArrayEquals(PAGE.getBytes(StandardCharsets.UTF_8), replayed.body());
+    }
+
+    @Test
+    void servesFreshPageWithoutRequest() throws IOException {
+        CachingPageFetcher fetcher = onlineFetcher();
+        fetcher.fetch(url("/recipe"));
+        fetcher.fetch(url("/recipe#steps"));
+
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void doesNotStoreNoStoreOrPrivatePages() throws IOException {
+        CachingPageFetcher fetcher = onlineFetcher();
+        fetcher.fetch(url("/no-store"));
+        fetcher.fetch(url("/private"));
+
+        CachingPageFetcher offlineFetcher = offlineFetcher();
+        assertThrows(FileNotFoundException.class, () -> offlineFetcher.fetch(url("/no-store")));
+        assertThrows(FileNotFoundException.class, () -> offlineFetcher.fetch(url("/private")));
+        try (var files = Files.list(cacheDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void dropsUnreadableEntry() throws IOException {
+        onlineFetcher().fetch(url("/recipe"));
+        Files.writeString(cacheDirectory.resolve(CachingPageFetcher.key(url("/recipe")) + ".page"), "truncated");
+
+        CachingPageFetcher offlineFetcher = offlineFetcher();
+        assertThrows(FileNotFoundException.class, () -> offlineFetcher.fetch(url("/recipe")));
+    }
+
+    @Test
+    void leavesOtherFilesInSharedDirectory() throws IOException {
+        List<String> otherFiles = List.of("notes.tmp", "index.html.gz", "app.properties", "draft.page");
+        for (String otherFile : otherFiles) {
+            Files.writeString(cacheDirectory.resolve(otherFile), "not a cache entry");
+        }
+        Path interruptedWrite = cacheDirectory.resolve("page-write-" + CachingPageFetcher.key(url("/recipe")) + "1.page.tmp");
+        Files.writeString(interruptedWrite, "partial");
+
+        // A one-byte limit evicts every entry the fetcher considers its own.
+        new CachingPageFetcher(cacheDirectory, 1, Duration.ofMinutes(10), true);
+
+        for (String otherFile : otherFiles) {
+            assertTrue(Files.exists(cacheDirectory.resolve(otherFile)), otherFile);
+        }
+        assertFalse(Files.exists(interruptedWrite));
+    }
+
+    private CachingPageFetcher onlineFetcher() throws IOException {
+        return new CachingPageFetcher(cacheDirectory, 1024 * 1024, Duration.ofMinutes(10), false);
+    }
+
+    private CachingPageFetcher offlineFetcher() throws IOException {
+        return new CachingPageFetcher(cacheDirectory, 1024 * 1024, Duration.ofMinutes(10), true);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private void respond(HttpExchange exchange, String cacheControl) throws IOException {
+        requests.incrementAndGet();
+        byte[] body = PAGE.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.getResponseHeaders().set("ETag", "\"v1\"");
+        if (cacheControl != null) {
+            exchange.getResponseHeaders().set("Cache-Control", cacheControl);
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
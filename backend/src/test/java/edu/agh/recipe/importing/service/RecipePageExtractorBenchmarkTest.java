@@ -0,0 +1,96 @@
+package edu.agh.recipe.importing.service;
+
+import edu.agh.recipe.importing.dictionary.DefaultQueryDictionary;
+import edu.agh.recipe.importing.model.FetchedPage;
+import edu.agh.recipe.importing.model.RecipeImportFieldQuery;
+import edu.agh.recipe.importing.model.RecipePageFields;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares a full {@link Jsoup#parse} followed by string selectors, as imports worked
+ * before, with {@link RecipePageExtractor#extract} over the saved site pages, and prints
+ * the time per page of both. Run with {@code mvn test -Dbenchmark=true -Dtest=RecipePageExtractorBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RecipePageExtractorBenchmarkTest {
+
+    private static final List<String> SITES = List.of(
+            "mojewypieki.com", "kwestiasmaku.com", "aniagotuje.pl", "przepisy.pl", "poprostupycha.com.pl"
+    );
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 10_000;
+
+    private final RecipePageExtractor extractor = new RecipePageExtractor(new SimpleMeterRegistry());
+    private final DefaultQueryDictionary queryDictionary = new DefaultQueryDictionary();
+
+    @Test
+    void compareFullParseWithExtract() throws IOException {
+        List<FetchedPage> pages = new ArrayList<>();
+        List<RecipeImportFieldQuery> queries = new ArrayList<>();
+        for (String site : SITES) {
+            pages.add(new FetchedPage("https://" + site + "/przepis", RecipePageExtractorTest.page(site), null));
+            queries.add(queryDictionary.resolve(site).orElseThrow());
+        }
+
+        Map<String, Long> timesByMethod = Map.of(
+                "full parse", measure(pages, queries, RecipePageExtractorBenchmarkTest::fullParse),
+                "extract", measure(pages, queries, extractor::extract)
+        );
+        timesByMethod.forEach((method, nanos) -> System.out.printf("%-10s %8.1f us/page%n",
+                method, (double) nanos / MEASURED_ROUNDS / pages.size() / TimeUnit.MICROSECONDS.toNanos(1)));
+    }
+
+    private static long measure(List<FetchedPage> pages, List<RecipeImportFieldQuery> queries, Extraction extraction)
+            throws IOException {
+        long checksum = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            checksum += runRound(pages, queries, extraction);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            checksum += runRound(pages, queries, extraction);
+        }
+        long elapsed = System.nanoTime() - start;
+        // Keeps the extracted fields observable, so the work is not optimized away.
+        assertTrue(checksum > 0);
+        return elapsed;
+    }
+
+    private static int runRound(List<FetchedPage> pages, List<RecipeImportFieldQuery> queries, Extraction extraction)
+            throws IOException {
+        int count = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            count += extraction.extract(pages.get(i), queries.get(i)).ingredients().size();
+        }
+        return count;
+    }
+
+    private static RecipePageFields fullParse(FetchedPage page, RecipeImportFieldQuery query) throws IOException {
+        Document document = Jsoup.parse(new ByteArrayInputStream(page.body()), page.charset(), page.url());
+        return new RecipePageFields(
+                document.select(query.title()).text(),
+                document.select(query.description()).text(),
+                document.select(query.ingredients()).stream().map(Element::text).toList(),
+                document.select(query.steps()).stream().map(Element::text).toList()
+        );
+    }
+
+    @FunctionalInterface
+    private interface Extraction {
+        RecipePageFields extract(FetchedPage page, RecipeImportFieldQuery query) throws IOException;
+    }
+}
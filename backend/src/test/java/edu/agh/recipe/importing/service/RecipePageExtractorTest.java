@@ -0,0 +1,137 @@
+package edu.agh.recipe.importing.service;
+
+import edu.agh.recipe.importing.dictionary.DefaultQueryDictionary;
+import edu.agh.recipe.importing.model.FetchedPage;
+import edu.agh.recipe.importing.model.RecipeImportFieldQuery;
+import edu.agh.recipe.importing.model.RecipePageFields;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Extracts recipes from saved pages of every site in {@link DefaultQueryDictionary}.
+ * The pages are trimmed copies of the real ones, with navigation, scripts and ads
+ * placed where the site queries would match them if they were not pruned.
+ */
+class RecipePageExtractorTest {
+
+    private final RecipePageExtractor extractor = new RecipePageExtractor(new SimpleMeterRegistry());
+    private final DefaultQueryDictionary queryDictionary = new DefaultQueryDictionary();
+
+    @Test
+    void extractsMojeWypiekiWithoutBreadcrumbs() throws IOException {
+        RecipePageFields fields = extract("mojewypieki.com", null);
+
+        assertEquals("Sernik na zimno z truskawkami", fields.title());
+        assertEquals("Lekki sernik bez pieczenia, idealny na upalne dni.", fields.description());
+        // The breadcrumbs inside the article are a list too.
+        assertEquals(List.of(
+                "200 g herbatników",
+                "80 g masła, roztopionego",
+                "1 kg twarogu sernikowego",
+                "150 g cukru pudru",
+                "500 g truskawek"
+        ), fields.ingredients());
+        assertEquals(3, fields.steps().size());
+        assertEquals("Herbatniki zmiksować na drobny piasek, wymieszać z masłem i wyłożyć nimi dno tortownicy.",
+                fields.steps().getFirst());
+    }
+
+    @Test
+    void extractsKwestiaSmakuInCharsetFromMetaTag() throws IOException {
+        // The page is ISO-8859-2 and the server sent no charset.
+        RecipePageFields fields = extract("kwestiasmaku.com", null);
+
+        assertEquals("Zupa ogórkowa", fields.title());
+        assertEquals("Klasyczna zupa z kiszonych ogórków, gęsta i sycąca.", fields.description());
+        assertEquals(List.of(
+                "1,5 litra bulionu",
+                "4 ziemniaki",
+                "4 kiszone ogórki",
+                "1 szklanka wody z ogórków",
+                "2 łyżki śmietany 18%"
+        ), fields.ingredients());
+        assertEquals(List.of(
+                "Ziemniaki obrać, pokroić w kostkę i ugotować w bulionie.",
+                "Ogórki zetrzeć na tarce, dodać do zupy razem z wodą z ogórków.",
+                "Zagęścić śmietaną i doprawić do smaku."
+        ), fields.steps());
+    }
+
+    @Test
+    void extractsAniaGotujeStepsAfterPrunedIcon() throws IOException {
+        RecipePageFields fields = extract("aniagotuje.pl", "UTF-8");
+
+        assertEquals("Placki ziemniaczane", fields.title());
+        assertEquals("Chrupiące placki z tartych ziemniaków, podawane ze śmietaną.", fields.description());
+        assertEquals(List.of(
+                "1 kg ziemniaków",
+                "1 cebula",
+                "1 jajko",
+                "2 łyżki mąki pszennej",
+                "sól i pieprz"
+        ), fields.ingredients());
+        assertEquals(List.of(
+                "Ziemniaki i cebulę zetrzeć na drobnych oczkach tarki, odlać nadmiar soku.",
+                "Dodać jajko, mąkę, sól i pieprz, dokładnie wymieszać.",
+                "Smażyć na rozgrzanym oleju z obu stron na złoty kolor."
+        ), fields.steps());
+    }
+
+    @Test
+    void extractsPrzepisyWithoutTemplateContent() throws IOException {
+        // Windows-1250 declared with http-equiv, and an ad template matching the ingredient query.
+        RecipePageFields fields = extract("przepisy.pl", null);
+
+        assertEquals("Pierogi ruskie", fields.title());
+        assertEquals("Tradycyjne pierogi z farszem ziemniaczano-serowym.", fields.description());
+        assertEquals(List.of(
+                "500 g mąki pszennej",
+                "250 ml ciepłej wody",
+                "500 g ziemniaków",
+                "250 g twarogu półtłustego",
+                "2 cebule"
+        ), fields.ingredients());
+        assertEquals(3, fields.steps().size());
+        assertEquals("Cebulę zeszklić na maśle i dodać do farszu.", fields.steps().get(1));
+    }
+
+    @Test
+    void extractsPoProstuPychaWithoutNavigation() throws IOException {
+        RecipePageFields fields = extract("poprostupycha.com.pl", null);
+
+        assertEquals("Szakszuka", fields.title());
+        assertEquals("Jajka duszone w pikantnym sosie pomidorowym z papryką.", fields.description());
+        // The site menu links to ingredients with the same class as the recipe list.
+        assertEquals(List.of(
+                "4 jajka",
+                "1 puszka pomidorów",
+                "1 czerwona papryka",
+                "1 ząbek czosnku",
+                "pół łyżeczki kuminu"
+        ), fields.ingredients());
+        assertEquals(List.of(
+                "Paprykę pokroić w kostkę i podsmażyć z czosnkiem.",
+                "Dodać pomidory i kumin, dusić 10 minut.",
+                "Zrobić wgłębienia, wbić jajka i dusić pod przykryciem, aż białka się zetną."
+        ), fields.steps());
+    }
+
+    private RecipePageFields extract(String site, String charset) throws IOException {
+        RecipeImportFieldQuery query = queryDictionary.resolve(site).orElseThrow();
+        return extractor.extract(new FetchedPage("https://" + site + "/przepis", page(site), charset), query);
+    }
+
+    static byte[] page(String site) throws IOException {
+        try (InputStream inputStream = RecipePageExtractorTest.class.getResourceAsStream("/importing/pages/" + site + ".html")) {
+            assertNotNull(inputStream, "Missing page fixture for " + site);
+            return inputStream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package edu.agh.recipe.recipes.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pages through an in-memory collection with the criteria built by the cursor,
+ * evaluated and sorted the way MongoDB does it, and checks that every recipe is
+ * returned exactly once and in order.
+ */
+class RecipeCursorTest {
+
+    private static final Date MONDAY = Date.from(Instant.parse("2024-05-06T10:00:00Z"));
+    private static final Date TUESDAY = Date.from(Instant.parse("2024-05-07T10:00:00Z"));
+    private static final Date WEDNESDAY = Date.from(Instant.parse("2024-05-08T10:00:00Z"));
+
+    // Recipes with repeated names and dates; the legacy ones have no modification date.
+    private static final List<Map<String, Object>> RECIPES = List.of(
+            recipe("665f1c000000000000000001", "Pierogi", MONDAY, TUESDAY),
+            recipe("665f1c000000000000000002", "Bigos", MONDAY, null),
+            recipe("665f1c000000000000000003", "Pierogi", TUESDAY, TUESDAY),
+            recipe("665f1c000000000000000004", "Żurek", MONDAY, null),
+            recipe("665f1c000000000000000005", "Bigos", WEDNESDAY, WEDNESDAY),
+            recipe("665f1c000000000000000006", "Pierogi", MONDAY, MONDAY),
+            recipe("665f1c000000000000000007", "Barszcz", TUESDAY, null),
+            recipe("665f1c000000000000000008", "Żurek", WEDNESDAY, TUESDAY)
+    );
+
+    @Test
+    void pagesThroughNameTiesInAscendingOrder() {
+        assertVisitsAllInOrder("name", Sort.Direction.ASC, 2);
+    }
+
+    @Test
+    void pagesThroughNameTiesInDescendingOrder() {
+        assertVisitsAllInOrder("name", Sort.Direction.DESC, 3);
+    }
+
+    @Test
+    void pagesThroughCreationDateTies() {
+        assertVisitsAllInOrder("createdAt", Sort.Direction.ASC, 2);
+        assertVisitsAllInOrder("createdAt", Sort.Direction.DESC, 2);
+    }
+
+    @Test
+    void pagesThroughRecipesWithoutModificationDate() {
+        for (int size = 1; size <= RECIPES.size(); size++) {
+            assertVisitsAllInOrder("modifiedAt", Sort.Direction.ASC, size);
+            assertVisitsAllInOrder("modifiedAt", Sort.Direction.DESC, size);
+        }
+    }
+
+    @Test
+    void tokenKeepsDateValues() {
+        RecipeCursor cursor = new RecipeCursor("createdAt", Sort.Direction.DESC, TUESDAY, "665f1c000000000000000003");
+
+        assertEquals(cursor, RecipeCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void tokenKeepsMissingValues() {
+        RecipeCursor cursor = new RecipeCursor("modifiedAt", Sort.Direction.ASC, null, "665f1c000000000000000002");
+
+        assertEquals(cursor, RecipeCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void rejectsMalformedToken() {
+        assertThrows(ResponseStatusException.class, () -> RecipeCursor.decode("not a cursor"));
+    }
+
+    @Test
+    void rejectsQueryOperatorsInPlaceOfValue() {
+        String token = token(new Document("f", "name").append("d", "ASC")
+                .append("v", new Document("$regex", ".*")).append("id", "665f1c000000000000000001"));
+
+        assertThrows(ResponseStatusException.class, () -> RecipeCursor.decode(token));
+    }
+
+    @Test
+    void rejectsValueOfWrongType() {
+        String token = token(new Document("f", "createdAt").append("d", "DESC")
+                .append("v", "2024-05-06").append("id", "665f1c000000000000000001"));
+
+        assertThrows(ResponseStatusException.class, () -> RecipeCursor.decode(token));
+    }
+
+    private static String token(Document document) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(document.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertVisitsAllInOrder(String field, Sort.Direction direction, int pageSize) {
+        Comparator<Map<String, Object>> order = mongoOrder(field, direction);
+        List<Map<String, Object>> expected = RECIPES.stream().sorted(order).toList();
+
+        List<Map<String, Object>> visited = new ArrayList<>();
+        RecipeCursor cursor = null;
+        while (true) {
+            Document criteria = cursor != null ? cursor.toCriteria().getCriteriaObject() : new Document();
+            List<Map<String, Object>> page = RECIPES.stream()
+                    .filter(recipe -> matches(criteria, recipe))
+                    .sorted(order)
+                    .limit(pageSize)
+                    .toList();
+            if (page.isEmpty()) {
+                break;
+            }
+            visited.addAll(page);
+            Map<String, Object> last = page.getLast();
+            cursor = RecipeCursor.decode(new RecipeCursor(field, direction,
+                    last.get(field), (String) last.get("_id")).encode());
+            assertTrue(visited.size() <= RECIPES.size(), "Pagination does not terminate");
+        }
+
+        assertEquals(ids(expected), ids(visited), field + " " + direction + " by " + pageSize);
+    }
+
+    // MongoDB puts missing values before any other value in ascending order.
+    @SuppressWarnings("unchecked")
+    private static Comparator<Map<String, Object>> mongoOrder(String field, Sort.Direction direction) {
+        Comparator<Map<String, Object>> byField = Comparator.comparing(
+                recipe -> (Comparable<Object>) recipe.get(field), Comparator.nullsFirst(Comparator.naturalOrder()));
+        Comparator<Map<String, Object>> byId = Comparator.comparing(recipe -> (String) recipe.get("_id"));
+        Comparator<Map<String, Object>> order = byField.thenComparing(byId);
+        return direction.isAscending() ? order : order.reversed();
+    }
+
+    private static boolean matches(Document criteria, Map<String, Object> recipe) {
+        for (Map.Entry<String, Object> entry : criteria.entrySet()) {
+            if (entry.getKey().equals("$or")) {
+                List<?> alternatives = (List<?>) entry.getValue();
+                if (alternatives.stream().noneMatch(alternative -> matches((Document) alternative, recipe))) {
+                    return false;
+                }
+            } else if (!matchesField(recipe.get(entry.getKey()), entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean matchesField(Object value, Object condition) {
+        if (!(condition instanceof Document operators)) {
+            return Objects.equals(value, condition);
+        }
+        for (Map.Entry<String, Object> operator : operators.entrySet()) {
+            Object operand = operator.getValue();
+            boolean comparable = value != null && operand != null && value.getClass() == operand.getClass();
+            boolean matches = switch (operator.getKey()) {
+                case "$gt" -> comparable && ((Comparable<Object>) value).compareTo(operand) > 0;
+                case "$lt" -> comparable && ((Comparable<Object>) value).compareTo(operand) < 0;
+                case "$ne" -> !Objects.equals(value, operand);
+                default -> throw new IllegalArgumentException("Unsupported operator: " + operator.getKey());
+            };
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Object> ids(List<Map<String, Object>> recipes) {
+        return recipes.stream().map(recipe -> recipe.get("_id")).toList();
+    }
+
+    private static Map<String, Object> recipe(String id, String name, Date createdAt, Date modifiedAt) {
+        Map<String, Object> recipe = new HashMap<>();
+        recipe.put("_id", id);
+        recipe.put("name", name);
+        recipe.put("createdAt", createdAt);
+        if (modifiedAt != null) {
+            recipe.put("modifiedAt", modifiedAt);
+        }
+        return recipe;
+    }
+}
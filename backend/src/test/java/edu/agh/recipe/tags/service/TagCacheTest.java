@@ -0,0 +1,89 @@
+package edu.agh.recipe.tags.service;
+
+import edu.agh.recipe.tags.dto.TagDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Interleaves reads and writes of the tag cache the way concurrent requests do and
+ * checks that only changes of the same tag keep a stale copy out of the cache.
+ */
+class TagCacheTest {
+
+    private final TagCache tagCache = new TagCache(2, new SimpleMeterRegistry());
+
+    @Test
+    void storesReadWhenOtherTagChanged() {
+        long generation = tagCache.generation();
+        tagCache.applyUsageDelta("other", 1, generation);
+        tagCache.evict("another");
+
+        tagCache.putIfUnchanged(tag("dinner", 3), generation);
+
+        assertEquals(Optional.of(tag("dinner", 3)), tagCache.getById("dinner"));
+    }
+
+    @Test
+    void dropsReadThatRacedWithChangeOfSameTag() {
+        long generation = tagCache.generation();
+        tagCache.update(tag("dinner", 4), tagCache.generation());
+
+        tagCache.putIfUnchanged(tag("dinner", 3), generation);
+
+        assertEquals(Optional.of(tag("dinner", 4)), tagCache.getById("dinner"));
+    }
+
+    @Test
+    void writesUpdateThrough() {
+        tagCache.putIfUnchanged(tag("dinner", 3), tagCache.generation());
+
+        tagCache.update(new TagDTO("dinner", "supper", "#ffffff", null, null, 3), tagCache.generation());
+
+        assertEquals("supper", tagCache.getById("dinner").orElseThrow().name());
+        assertTrue(tagCache.getByName("dinner").isEmpty());
+        assertTrue(tagCache.getByName("supper").isPresent());
+    }
+
+    @Test
+    void appliesUsageDeltaInPlaceAndClampsAtZero() {
+        tagCache.putIfUnchanged(tag("dinner", 1), tagCache.generation());
+
+        tagCache.applyUsageDelta("dinner", 2, tagCache.generation());
+        assertEquals(3, tagCache.getById("dinner").orElseThrow().usageCount());
+
+        tagCache.applyUsageDelta("dinner", -5, tagCache.generation());
+        assertEquals(0, tagCache.getById("dinner").orElseThrow().usageCount());
+    }
+
+    @Test
+    void evictsTagWhenWritesOfItRaced() {
+        tagCache.putIfUnchanged(tag("dinner", 1), tagCache.generation());
+        long usageGeneration = tagCache.generation();
+        tagCache.update(tag("dinner", 2), tagCache.generation());
+
+        tagCache.applyUsageDelta("dinner", 1, usageGeneration);
+
+        assertTrue(tagCache.getById("dinner").isEmpty());
+    }
+
+    @Test
+    void dropsReadOnceChangeOfItIsForgotten() {
+        long generation = tagCache.generation();
+        // The cache remembers as many changes as it holds tags.
+        tagCache.evict("dinner");
+        tagCache.evict("breakfast");
+        tagCache.evict("lunch");
+
+        tagCache.putIfUnchanged(tag("dinner", 3), generation);
+
+        assertTrue(tagCache.getById("dinner").isEmpty());
+    }
+
+    private static TagDTO tag(String id, int usageCount) {
+        return new TagDTO(id, id, "#000000", null, null, usageCount);
+    }
+}
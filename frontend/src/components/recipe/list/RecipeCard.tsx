@@ -50,7 +50,7 @@ const RecipeCard = ({
   const [exportLoading, setExportLoading] = useState<string | null>(null);
 
   const primaryImage = recipe.images && (recipe.images.find((img) => img.isPrimary) || recipe.images[0]);
-  const imageUrl = primaryImage ? `http://localhost:8080/api/images/${primaryImage.id}/image` : null;
+  const imageUrl = primaryImage ? `http://localhost:8080/api/images/${primaryImage.id}/image?size=card` : null;
 
   const handleCardClick = () => {
     navigate(`/recipes/${recipe.id}`);
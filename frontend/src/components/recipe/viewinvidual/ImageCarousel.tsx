@@ -84,7 +84,7 @@ const ImageCarousel = ({ images, recipeId, onImageUpdate }: ImageCarouselProps)
   }
 
   const currentImage = images[currentIndex];
-  const imageUrl = `http://localhost:8080/api/images/${currentImage.id}/image`;
+  const imageUrl = `http://localhost:8080/api/images/${currentImage.id}/image?size=full`;
   const isPrimary = currentImage.isPrimary;
 
   return (